@@ -0,0 +1,95 @@
+package com.compulynx.studentdata.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    // Declaring any Executor bean disables Boot's default one, which Spring MVC uses for async requests
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor ingestExecutor(@Value("${app.ingest.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("ingest-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Workers of parallel exports, each reading one id range on its own connection
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(@Value("${app.export.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("export-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Format writers of bundle exports. A bundle holds one thread per format for its whole
+    // run, and waits until all of them are free before it starts
+    @Bean
+    public ThreadPoolTaskExecutor bundleExecutor(@Value("${app.export.bundle-threads:6}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("export-bundle-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Runs background export jobs; kept apart from exportExecutor because a job's export
+    // submits its own workers there and waits for them
+    @Bean
+    public ThreadPoolTaskExecutor exportJobExecutor(@Value("${app.export.jobs.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("export-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Runs the COPY consumer of chunked upload sessions; kept apart from ingestExecutor so a
+    // consumer never waits on a producer queued behind it in the same pool
+    @Bean
+    public ThreadPoolTaskExecutor uploadSessionExecutor(@Value("${app.ingest.session-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("upload-session-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Runs the encoders of chunked upload sessions, which block until the client sends more
+    // chunks. Sized like uploadSessionExecutor, so every running consumer has its producer
+    // and idle sessions never hold up ingestExecutor's multipart uploads
+    @Bean
+    public ThreadPoolTaskExecutor uploadSessionProducerExecutor(@Value("${app.ingest.session-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("upload-session-encoder-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
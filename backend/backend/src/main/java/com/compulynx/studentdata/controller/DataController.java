@@ -2,15 +2,24 @@ package com.compulynx.studentdata.controller;
 
 import com.compulynx.studentdata.service.DataGenerationService;
 import com.compulynx.studentdata.service.DataProcessingService;
+import com.compulynx.studentdata.service.FilePathService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Map;
 
 @RestController
@@ -19,21 +28,44 @@ public class DataController {
 
     private final DataGenerationService dataGenerationService;
     private final DataProcessingService dataProcessingService;
+    private final FilePathService filePathService;
+    private final FileDownloadResponder fileDownloadResponder;
 
-    public DataController(DataGenerationService dataGenerationService, DataProcessingService dataProcessingService) {
+    public DataController(DataGenerationService dataGenerationService, DataProcessingService dataProcessingService,
+                          FilePathService filePathService, FileDownloadResponder fileDownloadResponder) {
         this.dataGenerationService = dataGenerationService;
         this.dataProcessingService = dataProcessingService;
+        this.filePathService = filePathService;
+        this.fileDownloadResponder = fileDownloadResponder;
     }
 
     @PostMapping("/generate")
     public ResponseEntity<Map<String, String>> generate(@RequestParam(defaultValue = "1000") int count) throws IOException {
         Path file = dataGenerationService.generateExcel(count);
-        return ResponseEntity.ok(Map.of("filePath", file.toString()));
+        return ResponseEntity.ok(fileReference(file));
     }
 
     @PostMapping("/process")
     public ResponseEntity<Map<String, String>> process(@RequestParam("file") MultipartFile file) throws IOException {
         Path csv = dataProcessingService.convertExcelToCsv(file);
-        return ResponseEntity.ok(Map.of("filePath", csv.toString()));
+        return ResponseEntity.ok(fileReference(csv));
+    }
+
+    /** A file of the output directory by its {@code fileId}, as returned by generate and process. */
+    @GetMapping("/files/{fileId}")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable String fileId, HttpServletRequest request)
+            throws IOException {
+        Path file = filePathService.resolveManagedFile(fileId);
+        String filename = file.getFileName().toString();
+        // Output files are written once under a new timestamped name, so size and modification time identify their content
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String etag = "\"" + Long.toHexString(attributes.size()) + "-"
+                + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+        MediaType mediaType = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return fileDownloadResponder.respond(file, etag, filename, mediaType, request);
+    }
+
+    private static Map<String, String> fileReference(Path file) {
+        return Map.of("filePath", file.toString(), "fileId", file.getFileName().toString());
     }
 }
@@ -0,0 +1,71 @@
+package com.compulynx.studentdata.controller;
+
+import com.compulynx.studentdata.model.ExportFormat;
+import com.compulynx.studentdata.model.ExportJobStatus;
+import com.compulynx.studentdata.model.SheetLayout;
+import com.compulynx.studentdata.service.ExportJob;
+import com.compulynx.studentdata.service.ExportJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/students/export/jobs")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+    private final FileDownloadResponder fileDownloadResponder;
+
+    public ExportJobController(ExportJobService exportJobService, FileDownloadResponder fileDownloadResponder) {
+        this.exportJobService = exportJobService;
+        this.fileDownloadResponder = fileDownloadResponder;
+    }
+
+    @PostMapping
+    public ResponseEntity<ExportJobStatus> submit(@RequestParam ExportFormat format,
+                                                  @RequestParam(required = false) Long studentId,
+                                                  @RequestParam(value = "class", required = false) String studentClass,
+                                                  @RequestParam(defaultValue = "ROLLOVER") SheetLayout sheets,
+                                                  @RequestParam(defaultValue = "1") int workers,
+                                                  @RequestParam(defaultValue = "false") boolean gzip) throws IOException {
+        String normalizedClass = (studentClass != null && studentClass.isBlank()) ? null : studentClass;
+        ExportJob job = exportJobService.submit(format, studentId, normalizedClass, sheets, workers, gzip);
+        return ResponseEntity.accepted().body(job.status());
+    }
+
+    @GetMapping("/{jobId}")
+    public ExportJobStatus status(@PathVariable String jobId) {
+        return exportJobService.get(jobId).status();
+    }
+
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable String jobId) {
+        return exportJobService.subscribe(jobId);
+    }
+
+    /** The finished artifact; the job id is its ETag, since an artifact never changes once written. */
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable String jobId, HttpServletRequest request)
+            throws IOException {
+        ExportFormat format = exportJobService.get(jobId).format();
+        return fileDownloadResponder.respond(exportJobService.artifact(jobId), "\"" + jobId + "\"",
+                format.filename(), MediaType.parseMediaType(format.mediaType()), request);
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> cancel(@PathVariable String jobId) throws IOException {
+        exportJobService.cancel(jobId);
+        return ResponseEntity.noContent().build();
+    }
+}
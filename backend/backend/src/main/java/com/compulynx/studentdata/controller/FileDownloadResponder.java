@@ -0,0 +1,158 @@
+package com.compulynx.studentdata.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Serves a finished file with conditional and partial request support: {@code If-None-Match}
+ * answers 304, a single {@code Range} (honoured only if {@code If-Range} still matches) answers
+ * 206 with that slice, and an unsatisfiable range answers 416.
+ * <p>
+ * Files served by path go out through the container's sendfile where it has one: the response
+ * carries only headers and Tomcat hands the file slice to the kernel after the request
+ * returns, so the bytes never pass through the JVM. Elsewhere, and for files served from an
+ * open channel, the body streams the slice with {@link FileChannel#transferTo} into the
+ * response stream, which copies it through a small heap buffer on the way.
+ */
+@Component
+public class FileDownloadResponder {
+
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Serves {@code file} on a synchronous request, by sendfile when the container supports it. */
+    public ResponseEntity<StreamingResponseBody> respond(Path file, String etag, String filename, MediaType mediaType,
+                                                         HttpServletRequest request) throws IOException {
+        HttpHeaders headers = new ServletServerHttpRequest(request).getHeaders();
+        if (notModified(headers, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            return respond(FileChannel.open(file, StandardOpenOption.READ), etag, filename, mediaType, headers);
+        }
+        String path = file.toRealPath().toString();
+        return response(headers, etag, filename, mediaType, Files.size(file), (start, count) -> {
+            // Tomcat sends the slice itself once the headers are out; the end is exclusive
+            request.setAttribute(SENDFILE_FILENAME, path);
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return null;
+        });
+    }
+
+    /**
+     * Serves a file that is already open, so it can no longer be swapped or removed under the
+     * download. The responder takes the channel over: it is closed once the body has been
+     * sent, or straight away when the response has no body.
+     */
+    public ResponseEntity<StreamingResponseBody> respond(FileChannel channel, String etag, String filename,
+                                                         MediaType mediaType, HttpHeaders request) throws IOException {
+        boolean streaming = false;
+        try {
+            if (notModified(request, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            ResponseEntity<StreamingResponseBody> response = response(request, etag, filename, mediaType,
+                    channel.size(), (start, count) -> out -> transfer(channel, start, count, out));
+            streaming = response.getBody() != null;
+            return response;
+        } finally {
+            if (!streaming) {
+                channel.close();
+            }
+        }
+    }
+
+    /** Sends {@code count} bytes of the file from {@code start}; a null body means the container sends them. */
+    @FunctionalInterface
+    private interface Slice {
+
+        StreamingResponseBody body(long start, long count) throws IOException;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> response(HttpHeaders request, String etag, String filename,
+                                                                  MediaType mediaType, long size, Slice slice)
+            throws IOException {
+        HttpRange range = range(request, etag);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        headers.setContentType(mediaType);
+        if (range == null) {
+            return ResponseEntity.ok().headers(headers).contentLength(size).body(slice.body(0, size));
+        }
+
+        long start = range.getRangeStart(size);
+        long end = range.getRangeEnd(size);
+        if (start >= size || start > end) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size)
+                .contentLength(end - start + 1)
+                .body(slice.body(start, end - start + 1));
+    }
+
+    /** The one range to serve, or null for the whole file; malformed and multi-range requests get the whole file. */
+    private static HttpRange range(HttpHeaders request, String etag) {
+        String ifRange = request.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = request.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Whether the client's {@code If-None-Match} already names {@code etag}. */
+    static boolean notModified(HttpHeaders request, String etag) {
+        for (String candidate : request.getIfNoneMatch()) {
+            // Weak comparison, as If-None-Match requires
+            if (candidate.equals("*") || candidate.replaceFirst("^W/", "").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void transfer(FileChannel file, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = file) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long end = position + count;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0 && position >= channel.size()) {
+                    throw new EOFException("File shrank while being sent");
+                }
+                position += sent;
+            }
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.compulynx.studentdata.controller;
 
+import com.compulynx.studentdata.model.SheetLayout;
 import com.compulynx.studentdata.model.Student;
+import com.compulynx.studentdata.model.StudentSummary;
+import com.compulynx.studentdata.service.ExportCache;
+import com.compulynx.studentdata.service.ExportCompressor;
 import com.compulynx.studentdata.service.ExportService;
 import com.compulynx.studentdata.service.StudentService;
-import org.springframework.core.io.ByteArrayResource;
+import com.compulynx.studentdata.service.StudentSummaryService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/students")
@@ -21,45 +30,140 @@ public class StudentController {
 
     private final StudentService studentService;
     private final ExportService exportService;
+    private final StudentSummaryService studentSummaryService;
+    private final ExportCache exportCache;
+    private final FileDownloadResponder fileDownloadResponder;
+    private final ExportCompressor exportCompressor;
 
-    public StudentController(StudentService studentService, ExportService exportService) {
+    public StudentController(StudentService studentService, ExportService exportService,
+                             StudentSummaryService studentSummaryService, ExportCache exportCache,
+                             FileDownloadResponder fileDownloadResponder, ExportCompressor exportCompressor) {
         this.studentService = studentService;
         this.exportService = exportService;
+        this.studentSummaryService = studentSummaryService;
+        this.exportCache = exportCache;
+        this.fileDownloadResponder = fileDownloadResponder;
+        this.exportCompressor = exportCompressor;
     }
 
     @GetMapping
     public Page<Student> listStudents(@RequestParam(defaultValue = "0") int page,
                                       @RequestParam(defaultValue = "20") int size,
                                       @RequestParam(required = false) Long studentId,
-                                      @RequestParam(value = "class", required = false) String studentClass) {
+                                      @RequestParam(value = "class", required = false) String studentClass,
+                                      @RequestParam(required = false) Long asOfBatch) {
         String normalizedClass = (studentClass != null && studentClass.isBlank()) ? null : studentClass;
-        return studentService.getStudents(studentId, normalizedClass, page, size);
+        return studentService.getStudents(studentId, normalizedClass, asOfBatch, page, size);
+    }
+
+    @GetMapping("/summary")
+    public StudentSummary summary() {
+        return studentSummaryService.summarize();
     }
 
     @GetMapping("/export/excel")
-    public ResponseEntity<ByteArrayResource> exportExcel() throws IOException {
-        byte[] data = exportService.exportExcel();
-        return buildResponse(data, "students.xlsx", MediaType.APPLICATION_OCTET_STREAM);
+    public ResponseEntity<StreamingResponseBody> exportExcel(@RequestParam(defaultValue = "ROLLOVER") SheetLayout sheets,
+                                                             @RequestParam(defaultValue = "1") int workers,
+                                                             @RequestHeader HttpHeaders headers) throws IOException {
+        return buildResponse(exportCache.key("excel", sheets), headers,
+                out -> exportService.exportExcel(sheets, workers, out),
+                "students.xlsx", MediaType.APPLICATION_OCTET_STREAM);
     }
 
     @GetMapping("/export/csv")
-    public ResponseEntity<ByteArrayResource> exportCsv() throws IOException {
-        byte[] data = exportService.exportCsv();
-        return buildResponse(data, "students.csv", MediaType.TEXT_PLAIN);
+    public ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam(required = false) Long studentId,
+                                                           @RequestParam(value = "class", required = false) String studentClass,
+                                                           @RequestParam(defaultValue = "1") int workers,
+                                                           @RequestHeader HttpHeaders headers) throws IOException {
+        String normalizedClass = (studentClass != null && studentClass.isBlank()) ? null : studentClass;
+        ExportCache.ExportWriter csv = out -> exportService.exportCsv(studentId, normalizedClass, workers, out);
+        // CSV shrinks several times over; the binary formats are compressed already
+        String encoding = exportCompressor.negotiate(headers);
+        ResponseEntity<StreamingResponseBody> response = buildResponse(
+                exportCache.key("csv", studentId, normalizedClass, encoding), headers,
+                encoding != null ? exportCompressor.compress(encoding, csv) : csv,
+                "students.csv", MediaType.TEXT_PLAIN);
+        HttpHeaders negotiated = new HttpHeaders();
+        negotiated.putAll(response.getHeaders());
+        negotiated.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != null) {
+            negotiated.set(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return new ResponseEntity<>(response.getBody(), negotiated, response.getStatusCode());
+    }
+
+    @GetMapping("/export/csv.gz")
+    public ResponseEntity<StreamingResponseBody> exportCsvGzip(@RequestParam(required = false) Long studentId,
+                                                               @RequestParam(value = "class", required = false) String studentClass,
+                                                               @RequestParam(defaultValue = "1") int workers,
+                                                               @RequestHeader HttpHeaders headers) throws IOException {
+        String normalizedClass = (studentClass != null && studentClass.isBlank()) ? null : studentClass;
+        return buildResponse(exportCache.key("csv.gz", studentId, normalizedClass), headers,
+                exportCompressor.compress(ExportCompressor.GZIP,
+                        out -> exportService.exportCsv(studentId, normalizedClass, workers, out)),
+                "students.csv.gz", MediaType.parseMediaType("application/gzip"));
     }
 
     @GetMapping("/export/pdf")
-    public ResponseEntity<ByteArrayResource> exportPdf() throws IOException {
-        byte[] data = exportService.exportPdf();
-        return buildResponse(data, "students.pdf", MediaType.APPLICATION_PDF);
+    public ResponseEntity<StreamingResponseBody> exportPdf(@RequestParam(defaultValue = "1") int workers,
+                                                           @RequestHeader HttpHeaders headers) throws IOException {
+        return buildResponse(exportCache.key("pdf"), headers, out -> exportService.exportPdf(workers, out),
+                "students.pdf", MediaType.APPLICATION_PDF);
+    }
+
+    @GetMapping("/export/arrow")
+    public ResponseEntity<StreamingResponseBody> exportArrow(@RequestHeader HttpHeaders headers) throws IOException {
+        return buildResponse(exportCache.key("arrow"), headers, exportService::exportArrow,
+                "students.arrows", MediaType.parseMediaType("application/vnd.apache.arrow.stream"));
+    }
+
+    @GetMapping("/export/bundle")
+    public ResponseEntity<StreamingResponseBody> exportBundle(@RequestParam(defaultValue = "false") boolean gzip,
+                                                              @RequestHeader HttpHeaders headers) throws IOException {
+        return buildResponse(exportCache.key("bundle", gzip), headers, out -> exportService.exportBundle(gzip, out),
+                "students-bundle.zip", MediaType.parseMediaType("application/zip"));
+    }
+
+    @GetMapping("/export/summary/excel")
+    public ResponseEntity<StreamingResponseBody> exportSummaryExcel(@RequestHeader HttpHeaders headers) throws IOException {
+        return buildResponse(exportCache.key("summary-excel"), headers, exportService::exportSummaryExcel,
+                "student-summary.xlsx", MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    @GetMapping("/export/summary/pdf")
+    public ResponseEntity<StreamingResponseBody> exportSummaryPdf(@RequestHeader HttpHeaders headers) throws IOException {
+        return buildResponse(exportCache.key("summary-pdf"), headers, exportService::exportSummaryPdf,
+                "student-summary.pdf", MediaType.APPLICATION_PDF);
     }
 
-    private ResponseEntity<ByteArrayResource> buildResponse(byte[] data, String filename, MediaType mediaType) {
-        ByteArrayResource resource = new ByteArrayResource(data);
-        return ResponseEntity.ok()
+    /**
+     * Serves a cached copy of the export when there is one, with ETag and Range support; the
+     * copy is opened while it is looked up, so evicting it meanwhile does not break the download.
+     * Hits stream from that open channel through a heap buffer rather than by sendfile, which
+     * would reopen the file by name after eviction may have removed it.
+     * Otherwise the export streams as it is produced, and is cached on the way through; its
+     * length is not known up front then. Misses go through the cache even when it keeps
+     * nothing, so identical concurrent exports still share one run. Worker counts are left
+     * out of cache keys: they only split the reading, and every format, rolled-over Excel
+     * sheets included, lays out the same rows the same way for any number of workers.
+     */
+    private ResponseEntity<StreamingResponseBody> buildResponse(ExportCache.Key key, HttpHeaders request,
+                                                                ExportCache.ExportWriter export, String filename,
+                                                                MediaType mediaType) throws IOException {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                .contentLength(data.length)
-                .contentType(mediaType)
-                .body(resource);
+                .contentType(mediaType);
+        if (!exportCache.enabled()) {
+            return response.body(out -> exportCache.writeThrough(key, out, export));
+        }
+        String etag = exportCache.etag(key);
+        FileChannel cached = exportCache.open(key);
+        if (cached != null) {
+            return fileDownloadResponder.respond(cached, etag, filename, mediaType, request);
+        }
+        if (FileDownloadResponder.notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return response.eTag(etag).body(out -> exportCache.writeThrough(key, out, export));
     }
 }
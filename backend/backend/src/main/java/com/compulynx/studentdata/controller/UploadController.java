@@ -1,29 +1,125 @@
 package com.compulynx.studentdata.controller;
 
+import com.compulynx.studentdata.model.DuplicatePolicy;
+import com.compulynx.studentdata.model.UploadBatch;
+import com.compulynx.studentdata.model.UploadMode;
+import com.compulynx.studentdata.model.UploadOptions;
+import com.compulynx.studentdata.model.UploadProgress;
+import com.compulynx.studentdata.model.UploadResult;
+import com.compulynx.studentdata.repository.UploadProgressRepository;
 import com.compulynx.studentdata.service.StudentUploadService;
+import com.compulynx.studentdata.service.UploadBatchService;
+import com.compulynx.studentdata.service.UploadSession;
+import com.compulynx.studentdata.service.UploadSessionService;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
 public class UploadController {
 
+    private static final String COMMIT_INTERVAL = "${app.upload.commit-interval:0}";
+
     private final StudentUploadService studentUploadService;
+    private final UploadSessionService uploadSessionService;
+    private final UploadProgressRepository uploadProgressRepository;
+    private final UploadBatchService uploadBatchService;
 
-    public UploadController(StudentUploadService studentUploadService) {
+    public UploadController(StudentUploadService studentUploadService, UploadSessionService uploadSessionService,
+                            UploadProgressRepository uploadProgressRepository, UploadBatchService uploadBatchService) {
         this.studentUploadService = studentUploadService;
+        this.uploadSessionService = uploadSessionService;
+        this.uploadProgressRepository = uploadProgressRepository;
+        this.uploadBatchService = uploadBatchService;
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<Map<String, Object>> uploadCsv(@RequestParam("file") MultipartFile file) throws IOException {
-        int inserted = studentUploadService.uploadCsv(file);
-        return ResponseEntity.ok(Map.of("inserted", inserted));
+    public ResponseEntity<UploadResult> uploadCsv(@RequestParam("file") MultipartFile file,
+                                                  @RequestParam(defaultValue = "LAST_WINS") DuplicatePolicy duplicates,
+                                                  @RequestParam(defaultValue = COMMIT_INTERVAL) int commitInterval,
+                                                  @RequestParam(defaultValue = "MERGE") UploadMode mode,
+                                                  @RequestParam(required = false) String uploadId) throws IOException {
+        UploadOptions options = new UploadOptions(duplicates, commitInterval, mode);
+        UploadResult result = uploadId == null
+                ? studentUploadService.upload(file, options)
+                : studentUploadService.upload(uploadId, file, options);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/upload/files")
+    public ResponseEntity<UploadResult> uploadManagedFile(@RequestParam("file") String reference,
+                                                          @RequestParam(defaultValue = "LAST_WINS") DuplicatePolicy duplicates,
+                                                          @RequestParam(defaultValue = COMMIT_INTERVAL) int commitInterval,
+                                                          @RequestParam(defaultValue = "MERGE") UploadMode mode,
+                                                          @RequestParam(required = false) String uploadId) throws IOException {
+        UploadOptions options = new UploadOptions(duplicates, commitInterval, mode);
+        return ResponseEntity.ok(studentUploadService.uploadManagedFile(reference, uploadId, options));
+    }
+
+    @GetMapping("/upload/progress/{uploadId}")
+    public ResponseEntity<UploadProgress> uploadProgress(@PathVariable String uploadId) {
+        return ResponseEntity.of(uploadProgressRepository.findById(uploadId));
+    }
+
+    @GetMapping("/upload/batches")
+    public List<UploadBatch> listBatches() {
+        return uploadBatchService.listBatches();
+    }
+
+    @DeleteMapping("/upload/batches/{batchId}")
+    public ResponseEntity<Void> rollbackBatch(@PathVariable long batchId) {
+        uploadBatchService.rollback(batchId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/upload/sessions")
+    public ResponseEntity<Map<String, Object>> createSession(
+            @RequestParam(defaultValue = "LAST_WINS") DuplicatePolicy duplicates,
+            @RequestParam(defaultValue = COMMIT_INTERVAL) int commitInterval,
+            @RequestParam(defaultValue = "MERGE") UploadMode mode) throws IOException {
+        UploadSession session = uploadSessionService.create(new UploadOptions(duplicates, commitInterval, mode));
+        return ResponseEntity.ok(sessionStatus(session));
+    }
+
+    @GetMapping("/upload/sessions/{sessionId}")
+    public ResponseEntity<Map<String, Object>> sessionStatus(@PathVariable String sessionId) {
+        return ResponseEntity.ok(sessionStatus(uploadSessionService.get(sessionId)));
+    }
+
+    @PutMapping("/upload/sessions/{sessionId}")
+    public ResponseEntity<Map<String, Object>> uploadChunk(@PathVariable String sessionId,
+                                                           @RequestParam long offset,
+                                                           InputStream body) throws IOException {
+        long received = uploadSessionService.appendChunk(sessionId, offset, body);
+        return ResponseEntity.ok(Map.of("sessionId", sessionId, "received", received));
+    }
+
+    @PostMapping("/upload/sessions/{sessionId}/complete")
+    public ResponseEntity<UploadResult> completeSession(@PathVariable String sessionId,
+                                                        @RequestParam(required = false) Long size) throws IOException {
+        return ResponseEntity.ok(uploadSessionService.complete(sessionId, size));
+    }
+
+    @DeleteMapping("/upload/sessions/{sessionId}")
+    public ResponseEntity<Void> abortSession(@PathVariable String sessionId) throws IOException {
+        uploadSessionService.abort(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private Map<String, Object> sessionStatus(UploadSession session) {
+        return Map.of("sessionId", session.id(), "received", session.received(), "state", session.state());
     }
 }
@@ -0,0 +1,12 @@
+package com.compulynx.studentdata.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class ChunkTooLargeException extends RuntimeException {
+
+    public ChunkTooLargeException(long maxChunkSize) {
+        super("Upload chunk exceeds " + maxChunkSize + " bytes");
+    }
+}
@@ -0,0 +1,13 @@
+package com.compulynx.studentdata.exception;
+
+import com.compulynx.studentdata.model.ExportJobState;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ExportJobNotReadyException extends RuntimeException {
+
+    public ExportJobNotReadyException(String jobId, ExportJobState state) {
+        super("Export job " + jobId + " has no artifact to download, it is " + state);
+    }
+}
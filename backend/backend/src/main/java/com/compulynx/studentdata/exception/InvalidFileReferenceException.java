@@ -0,0 +1,12 @@
+package com.compulynx.studentdata.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidFileReferenceException extends RuntimeException {
+
+    public InvalidFileReferenceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.compulynx.studentdata.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ManagedFileNotFoundException extends RuntimeException {
+
+    public ManagedFileNotFoundException(String reference) {
+        super("File not found in output directory: " + reference);
+    }
+}
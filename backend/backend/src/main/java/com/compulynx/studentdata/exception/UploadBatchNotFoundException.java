@@ -0,0 +1,12 @@
+package com.compulynx.studentdata.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UploadBatchNotFoundException extends RuntimeException {
+
+    public UploadBatchNotFoundException(long batchId) {
+        super("Upload batch not found: " + batchId);
+    }
+}
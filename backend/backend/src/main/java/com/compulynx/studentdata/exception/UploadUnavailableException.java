@@ -0,0 +1,12 @@
+package com.compulynx.studentdata.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UploadUnavailableException extends RuntimeException {
+
+    public UploadUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
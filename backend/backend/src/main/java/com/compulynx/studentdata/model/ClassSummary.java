@@ -0,0 +1,21 @@
+package com.compulynx.studentdata.model;
+
+import java.util.SortedMap;
+
+/**
+ * Score and age statistics of one class, or of all students together. Score statistics only
+ * cover students with a score; percentiles interpolate between neighbouring scores like
+ * SQL's {@code percentile_cont}. The histogram is keyed by the lower bound of each 10-point
+ * bucket.
+ */
+public record ClassSummary(String studentClass,
+                           long students,
+                           long scored,
+                           Double averageScore,
+                           Integer minScore,
+                           Integer maxScore,
+                           Double medianScore,
+                           Double p90Score,
+                           SortedMap<Integer, Long> scoreHistogram,
+                           SortedMap<Integer, Long> dobYears) {
+}
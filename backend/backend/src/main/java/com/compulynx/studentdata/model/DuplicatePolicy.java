@@ -0,0 +1,8 @@
+package com.compulynx.studentdata.model;
+
+/** How an upload treats a student_id that appears more than once in the same file. */
+public enum DuplicatePolicy {
+    FIRST_WINS,
+    LAST_WINS,
+    REJECT
+}
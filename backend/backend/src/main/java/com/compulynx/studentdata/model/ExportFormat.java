@@ -0,0 +1,31 @@
+package com.compulynx.studentdata.model;
+
+/** Exports that can run as background jobs, with the file name and media type they download as. */
+public enum ExportFormat {
+    EXCEL("students.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV("students.csv", "text/csv"),
+    PDF("students.pdf", "application/pdf"),
+    BUNDLE("students-bundle.zip", "application/zip"),
+    ARROW("students.arrows", "application/vnd.apache.arrow.stream");
+
+    private final String filename;
+    private final String mediaType;
+
+    ExportFormat(String filename, String mediaType) {
+        this.filename = filename;
+        this.mediaType = mediaType;
+    }
+
+    public String filename() {
+        return filename;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /** The file name's extension, dot included. */
+    public String extension() {
+        return filename.substring(filename.indexOf('.'));
+    }
+}
@@ -0,0 +1,14 @@
+package com.compulynx.studentdata.model;
+
+public enum ExportJobState {
+    QUEUED,
+    RUNNING,
+    /** The artifact is ready to download until the job expires. */
+    DONE,
+    FAILED,
+    CANCELLED;
+
+    public boolean finished() {
+        return this == DONE || this == FAILED || this == CANCELLED;
+    }
+}
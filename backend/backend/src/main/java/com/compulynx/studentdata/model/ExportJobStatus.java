@@ -0,0 +1,6 @@
+package com.compulynx.studentdata.model;
+
+/** What a client polling or subscribing to an export job sees; {@code error} is set only for failed jobs. */
+public record ExportJobStatus(String jobId, ExportFormat format, ExportJobState state, long bytesWritten,
+                              String error) {
+}
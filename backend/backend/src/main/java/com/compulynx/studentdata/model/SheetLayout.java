@@ -0,0 +1,8 @@
+package com.compulynx.studentdata.model;
+
+public enum SheetLayout {
+    /** All students in id order, continued on a new sheet whenever one reaches Excel's row limit. */
+    ROLLOVER,
+    /** One sheet per class, each rolling over on its own. */
+    BY_CLASS
+}
@@ -1,7 +1,10 @@
 package com.compulynx.studentdata.model;
 
+import com.compulynx.studentdata.service.StudentChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
@@ -9,6 +12,7 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "students")
+@EntityListeners(StudentChangeListener.class)
 public class Student {
 
     @Id
@@ -30,6 +34,10 @@ public class Student {
     @Column(name = "score")
     private Integer score;
 
+    @JsonIgnore
+    @Column(name = "row_hash")
+    private Long rowHash;
+
     public Student() {
     }
 
@@ -89,4 +97,12 @@ public class Student {
     public void setScore(Integer score) {
         this.score = score;
     }
+
+    public Long getRowHash() {
+        return rowHash;
+    }
+
+    public void setRowHash(Long rowHash) {
+        this.rowHash = rowHash;
+    }
 }
@@ -0,0 +1,11 @@
+package com.compulynx.studentdata.model;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a students row for bulk scans. Unlike {@link Student} it is not
+ * managed by the persistence context, so reading millions of them costs no dirty checking.
+ */
+public record StudentRow(long studentId, String firstName, String lastName, LocalDate dob,
+                         String studentClass, Integer score) {
+}
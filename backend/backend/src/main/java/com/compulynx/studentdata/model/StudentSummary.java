@@ -0,0 +1,6 @@
+package com.compulynx.studentdata.model;
+
+import java.util.List;
+
+public record StudentSummary(List<ClassSummary> classes, ClassSummary overall) {
+}
@@ -0,0 +1,12 @@
+package com.compulynx.studentdata.model;
+
+public enum UploadMode {
+    /** Upsert the file into the live students table. */
+    MERGE,
+    /** Like MERGE, but rows whose content hash matches the stored one are not written at all. */
+    DELTA,
+    /** Load the file into a shadow table and swap it in, replacing every existing student. */
+    REPLACE,
+    /** Store the file as a new immutable batch that as-of queries can target and rollback can drop. */
+    BATCH
+}
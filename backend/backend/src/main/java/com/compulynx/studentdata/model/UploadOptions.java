@@ -0,0 +1,24 @@
+package com.compulynx.studentdata.model;
+
+/**
+ * @param duplicatePolicy how repeated student ids within one file are resolved
+ * @param commitInterval  rows per transaction; 0 loads the whole file in one transaction
+ * @param mode            merge into the live table or replace it wholesale
+ */
+public record UploadOptions(DuplicatePolicy duplicatePolicy, int commitInterval, UploadMode mode) {
+
+    public UploadOptions {
+        if (commitInterval < 0) {
+            throw new IllegalArgumentException("commitInterval must not be negative");
+        }
+    }
+
+    public UploadOptions(DuplicatePolicy duplicatePolicy, int commitInterval) {
+        this(duplicatePolicy, commitInterval, UploadMode.MERGE);
+    }
+
+    public static UploadOptions defaults() {
+        // Last-wins matches what the upsert fallback has always done with repeated ids
+        return new UploadOptions(DuplicatePolicy.LAST_WINS, 0, UploadMode.MERGE);
+    }
+}
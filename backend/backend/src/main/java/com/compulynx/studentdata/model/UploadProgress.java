@@ -0,0 +1,87 @@
+package com.compulynx.studentdata.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable checkpoint of an upload. It is updated in the same transaction as the rows it
+ * describes, so after a crash every source line up to {@code linesCommitted} is in the table.
+ */
+@Entity
+@Table(name = "upload_progress")
+public class UploadProgress {
+
+    public enum Status { RUNNING, COMPLETE, FAILED }
+
+    @Id
+    @Column(name = "upload_id")
+    private String uploadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @Column(name = "rows_committed", nullable = false)
+    private long rowsCommitted;
+
+    @Column(name = "lines_committed", nullable = false)
+    private long linesCommitted;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public UploadProgress() {
+    }
+
+    public UploadProgress(String uploadId) {
+        this.uploadId = uploadId;
+        this.status = Status.RUNNING;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getRowsCommitted() {
+        return rowsCommitted;
+    }
+
+    public void setRowsCommitted(long rowsCommitted) {
+        this.rowsCommitted = rowsCommitted;
+    }
+
+    public long getLinesCommitted() {
+        return linesCommitted;
+    }
+
+    public void setLinesCommitted(long linesCommitted) {
+        this.linesCommitted = linesCommitted;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
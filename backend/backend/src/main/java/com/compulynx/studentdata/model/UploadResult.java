@@ -0,0 +1,32 @@
+package com.compulynx.studentdata.model;
+
+/**
+ * Outcome of a CSV upload.
+ *
+ * @param uploadId   key of the upload's progress record; pass it back to resume a failed upload
+ * @param inserted   rows written to the students table by this run; only new students in delta mode
+ * @param updated    delta mode: existing students whose content changed
+ * @param unchanged  delta mode: rows identical to what was already stored, which were not written
+ * @param duplicates rows whose student_id already appeared earlier in the same file
+ * @param batchId    batch mode: id of the batch the rows were stored in, otherwise null
+ * @param validation rows skipped by validation, with error counts per column
+ */
+public record UploadResult(String uploadId, int inserted, int updated, int unchanged, int duplicates, Long batchId,
+                           ValidationReport validation) {
+
+    public UploadResult(String uploadId, int inserted, int updated, int unchanged, int duplicates, Long batchId) {
+        this(uploadId, inserted, updated, unchanged, duplicates, batchId, ValidationReport.NONE);
+    }
+
+    public UploadResult(String uploadId, int inserted, int updated, int unchanged, int duplicates) {
+        this(uploadId, inserted, updated, unchanged, duplicates, null);
+    }
+
+    public UploadResult(String uploadId, int inserted, int duplicates) {
+        this(uploadId, inserted, 0, 0, duplicates, null);
+    }
+
+    public UploadResult withValidation(ValidationReport validation) {
+        return new UploadResult(uploadId, inserted, updated, unchanged, duplicates, batchId, validation);
+    }
+}
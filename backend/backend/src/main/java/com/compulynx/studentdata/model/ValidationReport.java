@@ -0,0 +1,19 @@
+package com.compulynx.studentdata.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows an upload skipped because they broke the schema or the domain rules.
+ *
+ * @param rejected       rows that were not loaded
+ * @param columnErrors   per CSV column, the number of rows whose value in it was missing or invalid;
+ *                       a row with several bad values counts once in each of those columns
+ * @param rejectedLines  line numbers of the rejected rows, header included, the first
+ *                       {@value #MAX_REJECTED_LINES} of them
+ */
+public record ValidationReport(int rejected, Map<String, Integer> columnErrors, List<Long> rejectedLines) {
+
+    public static final int MAX_REJECTED_LINES = 1000;
+    public static final ValidationReport NONE = new ValidationReport(0, Map.of(), List.of());
+}
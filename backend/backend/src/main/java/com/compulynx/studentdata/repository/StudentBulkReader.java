@@ -0,0 +1,220 @@
+package com.compulynx.studentdata.repository;
+
+import com.compulynx.studentdata.model.StudentRow;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk reads of the students table for exports and other full scans. Rows are handed to a
+ * {@link StudentRowSink} as {@link StudentRow} projections straight from the result set,
+ * bypassing the persistence context.
+ * <p>
+ * {@link #scan} reads through one server-side cursor: the query runs in a read-only
+ * transaction with a fetch size, which is what makes the PostgreSQL driver fetch rows in
+ * batches instead of buffering the whole result. {@link #scanInChunks} pages by student id
+ * instead, one short transaction per chunk, for scans too long to hold a transaction open.
+ * {@link #copyCsv} skips the rows altogether and streams PostgreSQL's own CSV output, and
+ * {@link #countGroups} leaves the rows to the database and reads only grouped counts.
+ */
+@Repository
+public class StudentBulkReader {
+
+    private static final String SELECT = "SELECT student_id, first_name, last_name, dob, class, score FROM students";
+    private static final String COPY_SELECT = """
+            SELECT student_id AS "studentId", first_name AS "firstName", last_name AS "lastName",
+                   dob, class, score
+            FROM students""";
+    private static final String GROUP_COUNTS = """
+            SELECT class, score, CAST(EXTRACT(YEAR FROM dob) AS INTEGER), count(*)
+            FROM students
+            GROUP BY class, score, CAST(EXTRACT(YEAR FROM dob) AS INTEGER)""";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StudentBulkReader(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             @Value("${app.bulk-read.fetch-size:5000}") int fetchSize) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /** Streams every student matching the optional filters, in student id order. */
+    public void scan(Long studentId, String studentClass, StudentRowSink sink) throws IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = select(null, studentId, studentClass, args);
+        inReadOnlyTransaction(() -> jdbcTemplate.query(sql, handler(sink), args.toArray()));
+    }
+
+    /**
+     * Counts students per (class, score, birth year). Scores and years are small domains, so
+     * the database aggregates the whole table into a few thousand groups in one pass and
+     * every summary statistic can be derived from them exactly.
+     */
+    public void countGroups(StudentGroupSink sink) {
+        RowCallbackHandler handler = rs -> sink.accept(
+                rs.getString(1), rs.getObject(2, Integer.class), rs.getObject(3, Integer.class), rs.getLong(4));
+        jdbcTemplate.query(GROUP_COUNTS, handler);
+    }
+
+    /** Distinct classes that have students, in name order. */
+    public List<String> classes() {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT class FROM students WHERE class IS NOT NULL ORDER BY class", String.class);
+    }
+
+    /** Whether any student has no class, so {@link #classes} does not cover every student. */
+    public boolean hasUnassigned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM students WHERE class IS NULL)", Boolean.class));
+    }
+
+    /** Streams the students without a class, in student id order. */
+    public void scanUnassigned(StudentRowSink sink) throws IOException {
+        String sql = select("class IS NULL", null, null, new ArrayList<>());
+        inReadOnlyTransaction(() -> jdbcTemplate.query(sql, handler(sink)));
+    }
+
+    /**
+     * Like {@link #scan}, but reads {@code chunkSize} rows per query with keyset pagination
+     * ({@code student_id > last seen id}), so no transaction or cursor outlives a chunk.
+     */
+    public void scanInChunks(Long studentId, String studentClass, int chunkSize, StudentRowSink sink) throws IOException {
+        long[] lastId = {Long.MIN_VALUE};
+        int[] read = new int[1];
+        StudentRowSink tracking = row -> {
+            lastId[0] = row.studentId();
+            read[0]++;
+            sink.accept(row);
+        };
+        do {
+            List<Object> args = new ArrayList<>(List.of(lastId[0]));
+            String sql = select("student_id > ?", studentId, studentClass, args) + " LIMIT ?";
+            args.add(chunkSize);
+            read[0] = 0;
+            inReadOnlyTransaction(() -> jdbcTemplate.query(sql, handler(tracking), args.toArray()));
+        } while (read[0] == chunkSize);
+    }
+
+    /**
+     * Writes the matching students as CSV with a header, in student id order, by having
+     * PostgreSQL run {@code COPY (SELECT ...) TO STDOUT}: the server formats the rows and
+     * the bytes go to {@code out} untouched. Returns false without writing anything if the
+     * database is not PostgreSQL.
+     */
+    public boolean copyCsv(Long studentId, String studentClass, OutputStream out) throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                return false;
+            }
+            copyOut(connection, copyQuery(connection, null, studentId, studentClass) + " WITH (FORMAT csv, HEADER)", out);
+            return true;
+        } catch (SQLException e) {
+            throw new IOException("CSV export failed", e);
+        }
+    }
+
+    /**
+     * {@code COPY (SELECT ...) TO STDOUT} of the matching students in id order, without options.
+     * COPY takes no bind parameters, so filters are inlined; the class is quoted by the server.
+     */
+    static String copyQuery(Connection connection, String condition, Long studentId, String studentClass)
+            throws SQLException {
+        List<String> conditions = new ArrayList<>();
+        if (condition != null) {
+            conditions.add(condition);
+        }
+        if (studentId != null) {
+            conditions.add("student_id = " + studentId);
+        }
+        if (studentClass != null) {
+            conditions.add("class = " + quoteLiteral(connection, studentClass));
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return "COPY (" + COPY_SELECT + where + " ORDER BY student_id) TO STDOUT";
+    }
+
+    static void copyOut(Connection connection, String sql, OutputStream out) throws SQLException, IOException {
+        OutputStream buffered = new BufferedOutputStream(out, COPY_BUFFER_SIZE);
+        connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, buffered);
+        buffered.flush();
+    }
+
+    static String quoteLiteral(Connection connection, String value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT quote_literal(?)")) {
+            statement.setString(1, value);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /** Query for the filtered students in id order; {@code condition}'s own parameters must already be in {@code args}. */
+    static String select(String condition, Long studentId, String studentClass, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (condition != null) {
+            conditions.add(condition);
+        }
+        if (studentId != null) {
+            conditions.add("student_id = ?");
+            args.add(studentId);
+        }
+        if (studentClass != null) {
+            conditions.add("class = ?");
+            args.add(studentClass);
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return SELECT + where + " ORDER BY student_id";
+    }
+
+    static RowCallbackHandler handler(StudentRowSink sink) {
+        return rs -> {
+            try {
+                sink.accept(map(rs));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static StudentRow map(ResultSet rs) throws SQLException {
+        return new StudentRow(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getObject(4, LocalDate.class),
+                rs.getString(5),
+                rs.getObject(6, Integer.class));
+    }
+
+    private void inReadOnlyTransaction(Runnable query) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> query.run());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.compulynx.studentdata.repository;
+
+/** Receives one row of a grouped count: how many students share a class, score and birth year. */
+@FunctionalInterface
+public interface StudentGroupSink {
+
+    void accept(String studentClass, Integer score, Integer dobYear, long students);
+}
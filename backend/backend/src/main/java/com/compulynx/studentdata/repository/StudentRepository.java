@@ -11,4 +11,28 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
 
     @Query("SELECT s FROM Student s WHERE (:studentId IS NULL OR s.studentId = :studentId) AND (:studentClass IS NULL OR s.studentClass = :studentClass)")
     Page<Student> search(@Param("studentId") Long studentId, @Param("studentClass") String studentClass, Pageable pageable);
+
+    // Versions up to :batchId with no newer one up to :batchId; rolled back batches have no partition.
+    // Rows are read in (student_id, batch_id DESC) index order and each is checked with one index
+    // probe, so a page stops after offset + size students and the count never sorts whole rows.
+    @Query(value = """
+            SELECT student_id, first_name, last_name, dob, class, score, row_hash
+            FROM student_versions v
+            WHERE batch_id <= :batchId AND (CAST(:studentId AS BIGINT) IS NULL OR student_id = :studentId)
+              AND (CAST(:studentClass AS VARCHAR) IS NULL OR class = :studentClass)
+              AND NOT EXISTS (SELECT 1 FROM student_versions newer
+                              WHERE newer.student_id = v.student_id
+                                AND newer.batch_id > v.batch_id AND newer.batch_id <= :batchId)
+            ORDER BY student_id
+            """, countQuery = """
+            SELECT count(*)
+            FROM student_versions v
+            WHERE batch_id <= :batchId AND (CAST(:studentId AS BIGINT) IS NULL OR student_id = :studentId)
+              AND (CAST(:studentClass AS VARCHAR) IS NULL OR class = :studentClass)
+              AND NOT EXISTS (SELECT 1 FROM student_versions newer
+                              WHERE newer.student_id = v.student_id
+                                AND newer.batch_id > v.batch_id AND newer.batch_id <= :batchId)
+            """, nativeQuery = true)
+    Page<Student> searchAsOfBatch(@Param("batchId") long batchId, @Param("studentId") Long studentId,
+                                  @Param("studentClass") String studentClass, Pageable pageable);
 }
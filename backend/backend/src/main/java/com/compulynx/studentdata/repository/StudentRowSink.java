@@ -0,0 +1,12 @@
+package com.compulynx.studentdata.repository;
+
+import com.compulynx.studentdata.model.StudentRow;
+
+import java.io.IOException;
+
+/** Receives the rows of a bulk scan one at a time, typically writing them straight to an output. */
+@FunctionalInterface
+public interface StudentRowSink {
+
+    void accept(StudentRow row) throws IOException;
+}
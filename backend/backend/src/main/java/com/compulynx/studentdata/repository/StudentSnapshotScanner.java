@@ -0,0 +1,378 @@
+package com.compulynx.studentdata.repository;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+/**
+ * Reads the students table with several connections at once. A coordinator transaction
+ * exports its snapshot with {@code pg_export_snapshot()}, the ids in it are cut at their
+ * percentiles into {@code parts} contiguous ranges of about the same number of rows, and one
+ * worker per range imports that snapshot with {@code SET TRANSACTION SNAPSHOT}, so every part
+ * sees exactly the same data.
+ * <p>
+ * Part {@code i} always holds lower ids than part {@code i + 1}. Callers get each part's
+ * output from their own sink and are told, in part order, when a part is complete, which
+ * lets them merge parts into one ordered stream while later parts are still being read.
+ * On databases other than PostgreSQL everything is read serially into part 0.
+ * <p>
+ * {@link #scanByClass} cuts the snapshot by class instead of by id, one part per class.
+ * <p>
+ * A scan holds its coordinator connection until its last part is read, and its workers need
+ * connections of their own from the same pool. So that coordinators cannot take the whole
+ * pool and leave no connection for any worker, at most {@code pool size / (threads + 1)}
+ * scans run at once; further ones wait for a slot.
+ */
+@Repository
+public class StudentSnapshotScanner {
+
+    /** Called on the coordinating thread once a part is fully written, in part order. */
+    @FunctionalInterface
+    public interface PartListener {
+
+        void completed(int part) throws IOException;
+    }
+
+    /** SQL conditions of every part, one per part, null for a part known to be empty. */
+    @FunctionalInterface
+    private interface PartConditions {
+
+        List<String> create(Connection coordinator, long[] bounds) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface RangeWork {
+
+        void run(Connection connection, int part, String range) throws SQLException, IOException;
+    }
+
+    private final DataSource dataSource;
+    private final StudentBulkReader studentBulkReader;
+    private final AsyncTaskExecutor exportExecutor;
+    private final int fetchSize;
+    private final Semaphore scans;
+
+    public StudentSnapshotScanner(DataSource dataSource, StudentBulkReader studentBulkReader,
+                                  @Qualifier("exportExecutor") AsyncTaskExecutor exportExecutor,
+                                  @Value("${app.bulk-read.fetch-size:5000}") int fetchSize,
+                                  @Value("${app.export.threads:4}") int threads,
+                                  @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.dataSource = dataSource;
+        this.studentBulkReader = studentBulkReader;
+        this.exportExecutor = exportExecutor;
+        this.fetchSize = fetchSize;
+        this.scans = new Semaphore(Math.max(1, poolSize / (threads + 1)), true);
+    }
+
+    /** Scans the matching students in {@code parts} ranges, sending part {@code i} to {@code sinks.apply(i)}. */
+    public void scan(int parts, Long studentId, String studentClass, IntFunction<StudentRowSink> sinks,
+                     PartListener listener) throws IOException {
+        boolean parallel = inSnapshot((coordinator, bounds) -> ranges(coordinator, bounds, parts), listener,
+                (connection, part, range) -> query(connection, range, studentId, studentClass, sinks.apply(part)));
+        if (!parallel) {
+            studentBulkReader.scan(studentId, studentClass, sinks.apply(0));
+            for (int part = 0; part < parts; part++) {
+                listener.completed(part);
+            }
+        }
+    }
+
+    /**
+     * Scans the students of each of {@code classes} in id order, sending those of
+     * {@code classes.get(i)} to {@code sinks.apply(i)}; a null class stands for the students
+     * without one. Without snapshots the classes are read one after another.
+     */
+    public void scanByClass(List<String> classes, IntFunction<StudentRowSink> sinks, PartListener listener)
+            throws IOException {
+        boolean parallel = inSnapshot((coordinator, bounds) -> {
+            List<String> conditions = new ArrayList<>();
+            for (String studentClass : classes) {
+                conditions.add(bounds == null ? null
+                        : studentClass == null ? "class IS NULL"
+                        : "class = " + StudentBulkReader.quoteLiteral(coordinator, studentClass));
+            }
+            return conditions;
+        }, listener, (connection, part, condition) -> query(connection, condition, null, null, sinks.apply(part)));
+        if (!parallel) {
+            for (int part = 0; part < classes.size(); part++) {
+                if (classes.get(part) == null) {
+                    studentBulkReader.scanUnassigned(sinks.apply(part));
+                } else {
+                    studentBulkReader.scan(null, classes.get(part), sinks.apply(part));
+                }
+                listener.completed(part);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #scan}, but each part is PostgreSQL's own CSV output from COPY, without a
+     * header. Returns false without writing anything if the database is not PostgreSQL.
+     */
+    public boolean copyCsv(int parts, Long studentId, String studentClass, IntFunction<OutputStream> outputs,
+                           PartListener listener) throws IOException {
+        return inSnapshot((coordinator, bounds) -> ranges(coordinator, bounds, parts), listener, (connection, part, range) -> {
+            String sql = StudentBulkReader.copyQuery(connection, range, studentId, studentClass) + " WITH (FORMAT csv)";
+            StudentBulkReader.copyOut(connection, sql, interruptible(outputs.apply(part)));
+        });
+    }
+
+    private void query(Connection connection, String condition, Long studentId, String studentClass,
+                       StudentRowSink sink) throws SQLException, IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = StudentBulkReader.select(condition, studentId, studentClass, args);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            RowCallbackHandler handler = StudentBulkReader.handler(sink);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    checkInterrupted();
+                    handler.processRow(rs);
+                }
+            }
+        }
+    }
+
+    /** Fails the next write once the worker is cancelled; the driver then cancels the COPY on the server. */
+    private static OutputStream interruptible(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                checkInterrupted();
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                checkInterrupted();
+                out.write(b, off, len);
+            }
+        };
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Scan worker cancelled");
+        }
+    }
+
+    /** Runs {@code work} for every part inside one shared snapshot; returns false if snapshots are unsupported. */
+    private boolean inSnapshot(PartConditions partConditions, PartListener listener, RangeWork work)
+            throws IOException {
+        try {
+            scans.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a scan slot");
+        }
+        try (Connection coordinator = dataSource.getConnection()) {
+            if (!coordinator.isWrapperFor(PGConnection.class)) {
+                return false;
+            }
+            coordinator.setAutoCommit(false);
+            coordinator.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            coordinator.setReadOnly(true);
+            try {
+                String snapshot;
+                long[] bounds;
+                try (Statement statement = coordinator.createStatement();
+                     ResultSet rs = statement.executeQuery(
+                             "SELECT pg_export_snapshot(), min(student_id), max(student_id) FROM students")) {
+                    rs.next();
+                    snapshot = rs.getString(1);
+                    long min = rs.getLong(2);
+                    bounds = rs.wasNull() ? null : new long[] {min, rs.getLong(3)};
+                }
+
+                List<String> conditions = partConditions.create(coordinator, bounds);
+                List<ScanWorker> workers = new ArrayList<>();
+                for (int part = 0; part < conditions.size(); part++) {
+                    String range = conditions.get(part);
+                    int index = part;
+                    workers.add(range == null ? null
+                            : new ScanWorker(exportExecutor, () -> runInSnapshot(snapshot, index, range, work)));
+                }
+                // The snapshot stays importable only while this transaction is open
+                awaitInOrder(workers, listener);
+            } finally {
+                coordinator.rollback();
+            }
+            return true;
+        } catch (SQLException e) {
+            throw new IOException("Parallel scan failed", e);
+        } finally {
+            scans.release();
+        }
+    }
+
+    private void runInSnapshot(String snapshot, int part, String range, RangeWork work) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setReadOnly(true);
+            try (Statement statement = connection.createStatement()) {
+                // pg_export_snapshot ids are server generated, never user input
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+                work.run(connection, part, range);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private static void awaitInOrder(List<ScanWorker> workers, PartListener listener) throws IOException {
+        try {
+            for (int part = 0; part < workers.size(); part++) {
+                ScanWorker worker = workers.get(part);
+                if (worker != null) {
+                    worker.get();
+                }
+                listener.completed(part);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for scan workers");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Parallel scan failed", e.getCause());
+        } finally {
+            // Workers must be off their connections and sinks before the snapshot and sinks go away
+            for (ScanWorker worker : workers) {
+                if (worker != null) {
+                    worker.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Inclusive id range of every part as a SQL condition, null for a part that is empty. The
+     * cuts are the id percentiles in the coordinator's snapshot, so gaps in the ids do not
+     * leave some parts with far more rows than others.
+     */
+    private static List<String> ranges(Connection coordinator, long[] bounds, int parts) throws SQLException {
+        List<String> ranges = new ArrayList<>();
+        if (bounds == null) {
+            for (int part = 0; part < parts; part++) {
+                ranges.add(null);
+            }
+            return ranges;
+        }
+        long[] cuts = cuts(coordinator, parts);
+        for (int part = 0; part < parts; part++) {
+            long from = part == 0 ? bounds[0] : cuts[part - 1] + 1;
+            long to = part == parts - 1 ? bounds[1] : cuts[part];
+            ranges.add(from > to ? null : "student_id BETWEEN " + from + " AND " + to);
+        }
+        return ranges;
+    }
+
+    /** The highest id of every part but the last; a part between two equal cuts is empty. */
+    private static long[] cuts(Connection coordinator, int parts) throws SQLException {
+        if (parts == 1) {
+            return new long[0];
+        }
+        Double[] fractions = new Double[parts - 1];
+        for (int cut = 0; cut < fractions.length; cut++) {
+            fractions[cut] = (cut + 1) / (double) parts;
+        }
+        try (PreparedStatement statement = coordinator.prepareStatement(
+                "SELECT percentile_disc(?) WITHIN GROUP (ORDER BY student_id) FROM students")) {
+            statement.setArray(1, coordinator.createArrayOf("float8", fractions));
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                Object[] values = (Object[]) rs.getArray(1).getArray();
+                long[] cuts = new long[values.length];
+                for (int cut = 0; cut < cuts.length; cut++) {
+                    cuts[cut] = ((Number) values[cut]).longValue();
+                }
+                return cuts;
+            }
+        }
+    }
+
+    /**
+     * One part's worker. A cancelled {@link Future} reports done at once, even while its task is
+     * still running, so {@link #stop} waits on a latch of its own until the task has really ended.
+     */
+    private static final class ScanWorker {
+
+        @FunctionalInterface
+        interface Task {
+
+            void run() throws SQLException, IOException;
+        }
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private final Future<?> future;
+
+        ScanWorker(AsyncTaskExecutor executor, Task task) {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    task.run();
+                    return null;
+                } finally {
+                    stopped.countDown();
+                }
+            });
+        }
+
+        void get() throws InterruptedException, ExecutionException {
+            future.get();
+        }
+
+        /** Cancels the task and returns once it has either finished or will never start. */
+        void stop() {
+            future.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    stopped.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.compulynx.studentdata.repository;
+
+import com.compulynx.studentdata.model.UploadBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface UploadBatchRepository extends JpaRepository<UploadBatch, Long> {
+
+    List<UploadBatch> findAllByOrderByBatchIdDesc();
+}
@@ -0,0 +1,7 @@
+package com.compulynx.studentdata.repository;
+
+import com.compulynx.studentdata.model.UploadProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UploadProgressRepository extends JpaRepository<UploadProgress, String> {
+}
@@ -0,0 +1,353 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.StudentRow;
+import com.compulynx.studentdata.repository.StudentRowSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes students as an Arrow IPC stream: studentId as int64, the names as utf8, dob as
+ * date32, class dictionary-encoded with int32 indices and score as int32. Rows are collected
+ * into record batches of {@code batchRows}, each written as soon as it fills, so memory is
+ * bounded by one batch however many rows are streamed through.
+ * <p>
+ * The class dictionary is sent before the first batch with the classes known up front;
+ * a class first seen later goes out in a delta dictionary batch ahead of the batch using it.
+ */
+final class ArrowStreamWriter implements StudentRowSink {
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final short METADATA_V5 = 4;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_DICTIONARY_BATCH = 2;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_DATE = 8;
+    private static final short DATE_UNIT_DAY = 0;
+    private static final long CLASS_DICTIONARY_ID = 0;
+    private static final byte[] PADDING = new byte[8];
+
+    private final OutputStream out;
+    private final int batchRows;
+    private final Map<String, Integer> classIndexes = new HashMap<>();
+    private final List<String> unsentClasses = new ArrayList<>();
+    private final FixedColumn studentIds;
+    private final Utf8Column firstNames;
+    private final Utf8Column lastNames;
+    private final FixedColumn dobs;
+    private final FixedColumn classes;
+    private final FixedColumn scores;
+    private boolean dictionarySent;
+    private int rows;
+
+    /** Starts the stream with its schema; {@code knownClasses} make up the initial class dictionary. */
+    ArrowStreamWriter(OutputStream out, List<String> knownClasses, int batchRows) throws IOException {
+        this.out = out;
+        this.batchRows = batchRows;
+        this.studentIds = new FixedColumn(8, batchRows);
+        this.firstNames = new Utf8Column(batchRows);
+        this.lastNames = new Utf8Column(batchRows);
+        this.dobs = new FixedColumn(4, batchRows);
+        this.classes = new FixedColumn(4, batchRows);
+        this.scores = new FixedColumn(4, batchRows);
+        for (String studentClass : knownClasses) {
+            classIndex(studentClass);
+        }
+        writeMessage(HEADER_SCHEMA, schema(), List.of(), List.of());
+    }
+
+    @Override
+    public void accept(StudentRow student) throws IOException {
+        studentIds.addLong(rows, student.studentId());
+        firstNames.add(rows, student.firstName());
+        lastNames.add(rows, student.lastName());
+        if (student.dob() != null) {
+            dobs.addInt(rows, (int) student.dob().toEpochDay());
+        } else {
+            dobs.addNull(rows);
+        }
+        if (student.studentClass() != null) {
+            classes.addInt(rows, classIndex(student.studentClass()));
+        } else {
+            classes.addNull(rows);
+        }
+        if (student.score() != null) {
+            scores.addInt(rows, student.score());
+        } else {
+            scores.addNull(rows);
+        }
+        if (++rows == batchRows) {
+            writeBatch();
+        }
+    }
+
+    /** Writes the last partial batch and the end-of-stream marker; {@code out} is flushed but left open. */
+    void finish() throws IOException {
+        if (rows > 0) {
+            writeBatch();
+        }
+        writeInt(CONTINUATION);
+        writeInt(0);
+        out.flush();
+    }
+
+    private int classIndex(String studentClass) {
+        Integer index = classIndexes.get(studentClass);
+        if (index == null) {
+            index = classIndexes.size();
+            classIndexes.put(studentClass, index);
+            unsentClasses.add(studentClass);
+        }
+        return index;
+    }
+
+    private void writeBatch() throws IOException {
+        if (!dictionarySent || !unsentClasses.isEmpty()) {
+            writeDictionary();
+        }
+        List<byte[]> body = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        Column[] columns = {studentIds, firstNames, lastNames, dobs, classes, scores};
+        long[] nodes = new long[columns.length * 2];
+        for (int column = 0; column < columns.length; column++) {
+            nodes[column * 2] = rows;
+            nodes[column * 2 + 1] = columns[column].buffers(rows, body, lengths);
+        }
+        writeMessage(HEADER_RECORD_BATCH, recordBatch(rows, nodes, lengths), body, lengths);
+
+        rows = 0;
+        for (Column column : columns) {
+            column.reset();
+        }
+    }
+
+    private void writeDictionary() throws IOException {
+        Utf8Column values = new Utf8Column(unsentClasses.size());
+        for (int i = 0; i < unsentClasses.size(); i++) {
+            values.add(i, unsentClasses.get(i));
+        }
+        List<byte[]> body = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        values.buffers(unsentClasses.size(), body, lengths);
+        FlatBufferEncoder.Table dictionary = new FlatBufferEncoder.Table()
+                .addLong(0, CLASS_DICTIONARY_ID)
+                .addTable(1, recordBatch(unsentClasses.size(), new long[]{unsentClasses.size(), 0}, lengths))
+                .addBoolean(2, dictionarySent);
+        writeMessage(HEADER_DICTIONARY_BATCH, dictionary, body, lengths);
+        dictionarySent = true;
+        unsentClasses.clear();
+    }
+
+    private static FlatBufferEncoder.Table schema() {
+        FlatBufferEncoder.Table int32 = intType(32);
+        FlatBufferEncoder.Table classDictionary = new FlatBufferEncoder.Table()
+                .addLong(0, CLASS_DICTIONARY_ID)
+                .addTable(1, int32)
+                .addBoolean(2, false);
+        return new FlatBufferEncoder.Table()
+                .addShort(0, 0) // little endian
+                .addTables(1, List.of(
+                        field("studentId", false, TYPE_INT, intType(64), null),
+                        field("firstName", true, TYPE_UTF8, new FlatBufferEncoder.Table(), null),
+                        field("lastName", true, TYPE_UTF8, new FlatBufferEncoder.Table(), null),
+                        field("dob", true, TYPE_DATE, new FlatBufferEncoder.Table().addShort(0, DATE_UNIT_DAY), null),
+                        // A dictionary-encoded field is typed by its values; the indices are in its encoding
+                        field("class", true, TYPE_UTF8, new FlatBufferEncoder.Table(), classDictionary),
+                        field("score", true, TYPE_INT, intType(32), null)));
+    }
+
+    private static FlatBufferEncoder.Table field(String name, boolean nullable, byte typeType,
+                                                 FlatBufferEncoder.Table type, FlatBufferEncoder.Table dictionary) {
+        FlatBufferEncoder.Table field = new FlatBufferEncoder.Table()
+                .addString(0, name)
+                .addBoolean(1, nullable)
+                .addByte(2, typeType)
+                .addTable(3, type)
+                .addTables(5, List.of());
+        if (dictionary != null) {
+            field.addTable(4, dictionary);
+        }
+        return field;
+    }
+
+    private static FlatBufferEncoder.Table intType(int bitWidth) {
+        return new FlatBufferEncoder.Table().addInt(0, bitWidth).addBoolean(1, true);
+    }
+
+    /** A RecordBatch table; body buffers are laid out back to back, each padded to 8 bytes. */
+    private static FlatBufferEncoder.Table recordBatch(long length, long[] nodes, List<Integer> bufferLengths) {
+        long[] buffers = new long[bufferLengths.size() * 2];
+        long offset = 0;
+        for (int i = 0; i < bufferLengths.size(); i++) {
+            buffers[i * 2] = offset;
+            buffers[i * 2 + 1] = bufferLengths.get(i);
+            offset += padded(bufferLengths.get(i));
+        }
+        return new FlatBufferEncoder.Table()
+                .addLong(0, length)
+                .addLongPairs(1, nodes)
+                .addLongPairs(2, buffers);
+    }
+
+    private void writeMessage(byte headerType, FlatBufferEncoder.Table header, List<byte[]> body,
+                              List<Integer> lengths) throws IOException {
+        long bodyLength = 0;
+        for (int length : lengths) {
+            bodyLength += padded(length);
+        }
+        byte[] metadata = FlatBufferEncoder.encode(new FlatBufferEncoder.Table()
+                .addShort(0, METADATA_V5)
+                .addByte(1, headerType)
+                .addTable(2, header)
+                .addLong(3, bodyLength));
+        writeInt(CONTINUATION);
+        writeInt(metadata.length);
+        out.write(metadata);
+        for (int i = 0; i < body.size(); i++) {
+            int length = lengths.get(i);
+            out.write(body.get(i), 0, length);
+            out.write(PADDING, 0, (int) (padded(length) - length));
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static long padded(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    /** Validity bitmap of one column of the current batch; a bitmap without nulls is sent empty. */
+    private abstract static class Column {
+
+        private final byte[] validity;
+        private int nulls;
+
+        Column(int capacity) {
+            this.validity = new byte[(capacity + 7) / 8];
+        }
+
+        void valid(int row) {
+            validity[row >> 3] |= (byte) (1 << (row & 7));
+        }
+
+        void invalid() {
+            nulls++;
+        }
+
+        /** Adds the column's buffers to the batch body, returning its null count. */
+        abstract int buffers(int rows, List<byte[]> body, List<Integer> lengths);
+
+        int validity(int rows, List<byte[]> body, List<Integer> lengths) {
+            body.add(validity);
+            lengths.add(nulls == 0 ? 0 : (rows + 7) / 8);
+            return nulls;
+        }
+
+        void reset() {
+            Arrays.fill(validity, (byte) 0);
+            nulls = 0;
+        }
+    }
+
+    private static final class FixedColumn extends Column {
+
+        private final int width;
+        private final ByteBuffer values;
+
+        FixedColumn(int width, int capacity) {
+            super(capacity);
+            this.width = width;
+            this.values = ByteBuffer.allocate(width * capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void addLong(int row, long value) {
+            values.putLong(value);
+            valid(row);
+        }
+
+        void addInt(int row, int value) {
+            values.putInt(value);
+            valid(row);
+        }
+
+        void addNull(int row) {
+            values.put(PADDING, 0, width);
+            invalid();
+        }
+
+        @Override
+        int buffers(int rows, List<byte[]> body, List<Integer> lengths) {
+            int nulls = validity(rows, body, lengths);
+            body.add(values.array());
+            lengths.add(values.position());
+            return nulls;
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            values.clear();
+        }
+    }
+
+    private static final class Utf8Column extends Column {
+
+        private final ByteBuffer offsets;
+        private ByteBuffer data = ByteBuffer.allocate(1024);
+
+        Utf8Column(int capacity) {
+            super(capacity);
+            this.offsets = ByteBuffer.allocate(4 * (capacity + 1)).order(ByteOrder.LITTLE_ENDIAN);
+            offsets.putInt(0);
+        }
+
+        void add(int row, String value) {
+            if (value == null) {
+                invalid();
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (data.remaining() < bytes.length) {
+                    ByteBuffer grown = ByteBuffer.allocate(Math.max(data.capacity() * 2, data.position() + bytes.length));
+                    grown.put(data.array(), 0, data.position());
+                    data = grown;
+                }
+                data.put(bytes);
+                valid(row);
+            }
+            offsets.putInt(data.position());
+        }
+
+        @Override
+        int buffers(int rows, List<byte[]> body, List<Integer> lengths) {
+            int nulls = validity(rows, body, lengths);
+            body.add(offsets.array());
+            lengths.add(offsets.position());
+            body.add(data.array());
+            lengths.add(data.position());
+            return nulls;
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            offsets.clear();
+            offsets.putInt(0);
+            data.clear();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.compulynx.studentdata.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link java.util.concurrent.ExecutorService} for one request, running its tasks on a
+ * shared executor at most {@code parallelism} at a time; the rest wait here, not in the
+ * shared queue. Shutting the view down only stops it taking tasks and lets
+ * {@link #awaitTermination} wait for its own: the shared executor keeps running. This lets
+ * APIs that shut down the executor they are given, such as commons-compress'
+ * {@code ParallelScatterZipCreator}, run on an application pool.
+ */
+final class BoundedExecutorView extends AbstractExecutorService {
+
+    private final Executor delegate;
+    private final int parallelism;
+    private final Deque<Runnable> queued = new ArrayDeque<>();
+    private int running;
+    private boolean shutdown;
+
+    BoundedExecutorView(Executor delegate, int parallelism) {
+        this.delegate = delegate;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor view is shut down");
+            }
+            if (running == parallelism) {
+                queued.add(task);
+                return;
+            }
+            running++;
+        }
+        try {
+            delegate.execute(wrap(task));
+        } catch (RuntimeException e) {
+            taskEnded();
+            throw e;
+        }
+    }
+
+    private Runnable wrap(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                next();
+            }
+        };
+    }
+
+    /**
+     * Hands the delegate the next queued task, if any, in place of the one that just ended.
+     * Tasks the delegate rejects, say while the application shuts down, are cancelled so
+     * nobody waits on them forever.
+     */
+    private void next() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                task = queued.poll();
+                if (task == null) {
+                    taskEnded();
+                    return;
+                }
+            }
+            try {
+                delegate.execute(wrap(task));
+                return;
+            } catch (RejectedExecutionException e) {
+                if (task instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+
+    private synchronized void taskEnded() {
+        running--;
+        if (running == 0) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    /** Drops the queued tasks; those already running are left to finish. */
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> dropped = new ArrayList<>(queued);
+        queued.clear();
+        return dropped;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && running == 0;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package com.compulynx.studentdata.service;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedTransferQueue;
+
+/**
+ * Hands fixed-size byte chunks from a CSV producer to the COPY consumer.
+ * Chunks are allocated once and recycled through a free queue, so the number of
+ * chunks bounds the memory in flight and blocks the producer when COPY falls behind.
+ */
+final class CopyBufferPipe {
+
+    static final class Chunk {
+        final byte[] data;
+        int length;
+        int rows;
+        long lastLine; // source line of the last row in the chunk
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+
+        int remaining() {
+            return data.length - length;
+        }
+    }
+
+    private static final Chunk END = new Chunk(0);
+
+    private final LinkedTransferQueue<Chunk> free = new LinkedTransferQueue<>();
+    private final LinkedTransferQueue<Chunk> filled = new LinkedTransferQueue<>();
+    private final int chunkSize;
+    private volatile Throwable failure;
+
+    CopyBufferPipe(int chunkSize, int chunkCount) {
+        this.chunkSize = chunkSize;
+        for (int i = 0; i < chunkCount; i++) {
+            free.add(new Chunk(chunkSize));
+        }
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    /** Producer side: waits for a recycled chunk. */
+    Chunk acquire() throws InterruptedException {
+        Chunk chunk = free.take();
+        chunk.length = 0;
+        chunk.rows = 0;
+        chunk.lastLine = 0;
+        return chunk;
+    }
+
+    void publish(Chunk chunk) {
+        filled.add(chunk);
+    }
+
+    void complete() {
+        filled.add(END);
+    }
+
+    void fail(Throwable cause) {
+        failure = cause;
+        filled.add(END);
+    }
+
+    /** Consumer side: returns the next filled chunk, or null once the producer has completed. */
+    Chunk take() throws IOException, InterruptedException {
+        Chunk chunk = filled.take();
+        if (chunk == END) {
+            if (failure != null) {
+                throw new IOException("Error processing CSV", failure);
+            }
+            return null;
+        }
+        return chunk;
+    }
+
+    void release(Chunk chunk) {
+        free.add(chunk);
+    }
+}
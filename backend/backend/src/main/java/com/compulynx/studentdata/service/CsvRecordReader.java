@@ -0,0 +1,233 @@
+package com.compulynx.studentdata.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Streams RFC 4180 CSV records straight out of a byte buffer. Fields are exposed as
+ * [start, end) offsets into {@link #buffer()} which stay valid until the next
+ * call to {@link #next()}, so no Strings or arrays are created per line.
+ * Quoted fields may contain commas, CRLF and newlines; their quotes are removed and
+ * doubled quotes collapsed in place, so the offsets always cover the field's value.
+ * Input is read through a channel, so files are read with a {@code FileChannel}
+ * straight into the buffer instead of through stream wrappers.
+ */
+final class CsvRecordReader implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 256 * 1024;      // 256KB read buffer
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024; // refuse runaway lines
+
+    // Record scanner states
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int CLOSED = 3;
+
+    private final ReadableByteChannel input;
+    private byte[] buffer = new byte[READ_BUFFER_SIZE];
+    private ByteBuffer window = ByteBuffer.wrap(buffer);
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fieldCount;
+    private int recordStart;
+    private int recordEnd;
+    private long recordNumber;
+
+    CsvRecordReader(InputStream input) {
+        this(Channels.newChannel(input));
+    }
+
+    CsvRecordReader(ReadableByteChannel input) {
+        this.input = input;
+    }
+
+    /** Advances to the next record; returns false at end of input. */
+    boolean next() throws IOException {
+        int newline = -1;
+        int scan = position;
+        int state = FIELD_START;
+        while (true) {
+            // Same quoting rules as split(): a quote opens a field only at its start, and a
+            // quote right after a closing quote is an escaped one
+            byte[] data = buffer;
+            for (int end = limit; scan < end; scan++) {
+                byte b = data[scan];
+                if (b > ',') {
+                    // Letters, digits and '-' fall in here: no separator, quote or line break
+                    if (state == FIELD_START) {
+                        state = UNQUOTED;
+                    }
+                } else if (state == QUOTED) {
+                    if (b == '"') {
+                        state = CLOSED;
+                    }
+                } else if (b == '\n') {
+                    newline = scan;
+                    break;
+                } else if (b == ',') {
+                    state = FIELD_START;
+                } else if (b == '"') {
+                    if (state != UNQUOTED) {
+                        state = QUOTED;
+                    }
+                } else if (state == FIELD_START && b != ' ' && b != '\t') {
+                    state = UNQUOTED;
+                }
+            }
+            if (newline >= 0) {
+                break;
+            }
+            if (eof) {
+                if (position == limit) {
+                    return false;
+                }
+                newline = limit;
+                break;
+            }
+            int shift = position;
+            fill();
+            scan -= shift - position;
+        }
+
+        recordStart = position;
+        int lineEnd = newline;
+        if (lineEnd > recordStart && buffer[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        recordEnd = lineEnd;
+        position = Math.min(newline + 1, limit);
+        recordNumber++;
+        split(recordStart, recordEnd);
+        return true;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    int start(int field) {
+        return starts[field];
+    }
+
+    int end(int field) {
+        return ends[field];
+    }
+
+    int recordLength() {
+        return recordEnd - recordStart;
+    }
+
+    /** 1-based number of the current record, header included. */
+    long recordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private void split(int from, int to) {
+        fieldCount = 0;
+        byte[] data = buffer;
+        int fieldStart = from;
+        int i = from;
+        while (i < to) {
+            byte b = data[i];
+            if (b == ',') {
+                addField(fieldStart, i);
+                fieldStart = ++i;
+            } else if (b == '"' && isBlank(fieldStart, i)) {
+                i = splitQuoted(i, to);
+                fieldStart = i + 1;
+                i = fieldStart;
+            } else {
+                i++;
+            }
+        }
+        if (fieldStart <= to) {
+            addField(fieldStart, to);
+        }
+    }
+
+    /**
+     * Unquotes the field whose opening quote is at {@code quote}, shifting its value left
+     * over the quote and collapsing doubled quotes. Anything between the closing quote and
+     * the next comma is kept as is. Returns the offset of the terminating comma, or
+     * {@code to} at the end of the record.
+     */
+    private int splitQuoted(int quote, int to) {
+        byte[] data = buffer;
+        int write = quote;
+        int read = quote + 1;
+        while (read < to) {
+            byte b = data[read++];
+            if (b == '"') {
+                if (read < to && data[read] == '"') {
+                    read++;
+                } else {
+                    break;
+                }
+            }
+            data[write++] = b;
+        }
+        while (read < to && data[read] != ',') {
+            data[write++] = data[read++];
+        }
+        addField(quote, write);
+        return read;
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] != ' ' && buffer[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        } else if (limit == buffer.length) {
+            if (buffer.length >= MAX_RECORD_SIZE) {
+                throw new IOException("CSV record exceeds " + MAX_RECORD_SIZE + " bytes");
+            }
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            window = ByteBuffer.wrap(buffer);
+        }
+        window.limit(buffer.length).position(limit);
+        int read = input.read(window);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+}
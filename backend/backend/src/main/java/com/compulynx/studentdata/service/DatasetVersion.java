@@ -0,0 +1,43 @@
+package com.compulynx.studentdata.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts changes to the students data; anything derived under an older version may be stale.
+ * <p>
+ * Every write reports itself through {@link #changed()}: JPA writes to {@code Student} through
+ * {@link StudentChangeListener}, uploads and batch rollbacks from their services. Bulk JPQL and
+ * SQL run outside the application go unseen, so data edited that way is only picked up by
+ * the export cache after a restart.
+ */
+@Component
+public class DatasetVersion {
+
+    // Starts from the clock so versions, and the ETags built from them, never repeat across restarts
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Records a change to the students data. Inside a transaction the version moves both now
+     * and once the transaction ends, so an export read while it was open is never kept as
+     * current: it is keyed at the first version at the latest and outdated by the second.
+     */
+    public void changed() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.compulynx.studentdata.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Finished exports kept as files, keyed by format, filters and the {@link DatasetVersion} they
+ * were read at. An export is written through to the cache while it streams to its first
+ * client and only becomes visible once complete. Entries are evicted least recently used
+ * first once their total size passes {@code app.export.cache.max-size}; a size of 0 stops
+ * finished exports from being kept.
+ * <p>
+ * Identical exports are single-flight either way: a request for a key that is already being
+ * exported does not start a second export but follows the running one's file as it grows, so
+ * a burst of identical requests costs one database scan and no more heap than one.
+ */
+@Component
+public class ExportCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportCache.class);
+
+    /** What an export depends on; exports with equal keys have identical bytes. */
+    public record Key(String name, long version) {
+
+        String id() {
+            return name + "@" + version;
+        }
+    }
+
+    public record Entry(Path file, String etag, long size, long version) {
+    }
+
+    /** Writes one export; the same shape as the export methods of {@link ExportService}. */
+    @FunctionalInterface
+    public interface ExportWriter {
+
+        void write(OutputStream out) throws IOException;
+    }
+
+    private final DatasetVersion datasetVersion;
+    private final long maxSize;
+    private final Path directory;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, ExportFlight> flights = new HashMap<>();
+    private long totalSize;
+
+    public ExportCache(DatasetVersion datasetVersion,
+                       @Value("${app.export.cache.dir:}") String directory,
+                       @Value("${app.export.cache.max-size:1073741824}") long maxSize) throws IOException {
+        this.datasetVersion = datasetVersion;
+        this.maxSize = maxSize;
+        this.directory = directory.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "student-export-cache")
+                : Paths.get(directory);
+        Files.createDirectories(this.directory);
+        // Entries do not survive a restart: versions start over, so old files can never be hit
+        try (Stream<Path> files = Files.list(this.directory)) {
+            files.forEach(ExportCache::delete);
+        }
+    }
+
+    public boolean enabled() {
+        return maxSize > 0;
+    }
+
+    /** Key of an export of {@code format} with the given filters, at the current dataset version. */
+    public Key key(String format, Object... filters) {
+        return new Key(format + Arrays.toString(filters), datasetVersion.current());
+    }
+
+    /** Strong ETag of the export under {@code key}, known before the export exists. */
+    public String etag(Key key) {
+        return "\"" + UUID.nameUUIDFromBytes(key.id().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /** The cached export, or null; a hit makes the entry the most recently used. */
+    public synchronized Entry get(Key key) {
+        return entries.get(key.id());
+    }
+
+    /**
+     * The cached export opened for reading, or null; a hit makes the entry the most recently
+     * used. The file is opened under the cache lock, so an eviction can no longer take it
+     * away: the caller reads the same bytes however long it holds the channel, and closes it.
+     */
+    public synchronized FileChannel open(Key key) throws IOException {
+        Entry entry = entries.get(key.id());
+        return entry == null ? null : FileChannel.open(entry.file(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Runs {@code writer} into {@code out} and, at the same time, into a cache file that is
+     * added under {@code key} once the export completes. If the same key is already being
+     * exported, {@code out} gets a copy of that export instead and {@code writer} never runs.
+     * A failed export leaves nothing behind and fails every request following it.
+     */
+    public void writeThrough(Key key, OutputStream out, ExportWriter writer) throws IOException {
+        ExportFlight flight;
+        FileChannel following = null;
+        synchronized (this) {
+            flight = flights.get(key.id());
+            if (flight != null) {
+                following = FileChannel.open(flight.file(), StandardOpenOption.READ);
+            } else {
+                flight = new ExportFlight(directory.resolve(UUID.randomUUID() + ".export"));
+                flights.put(key.id(), flight);
+            }
+        }
+        if (following != null) {
+            try (FileChannel channel = following) {
+                flight.follow(channel, out);
+            }
+            return;
+        }
+
+        try {
+            try (OutputStream file = flight.output()) {
+                writer.write(new LeaderOutput(file, out));
+            }
+            synchronized (this) {
+                flights.remove(key.id());
+                put(key, new Entry(flight.file(), etag(key), Files.size(flight.file()), key.version()));
+            }
+            flight.complete();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                flights.remove(key.id());
+            }
+            flight.fail(e instanceof IOException io ? io : new IOException(e));
+            delete(flight.file());
+            throw e;
+        }
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        long current = datasetVersion.current();
+        // Not kept at all, too big to ever fit, or the data changed while it was being written
+        if (!enabled() || entry.size() > maxSize || entry.version() < current) {
+            delete(entry.file());
+            return;
+        }
+        Entry previous = entries.put(key.id(), entry);
+        if (previous != null) {
+            remove(previous);
+        }
+        totalSize += entry.size();
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            // Older versions can never be hit again; otherwise evict least recently used first
+            if (eldest != entry && (eldest.version() < current || totalSize > maxSize)) {
+                iterator.remove();
+                remove(eldest);
+            }
+        }
+    }
+
+    private void remove(Entry entry) {
+        totalSize -= entry.size();
+        delete(entry.file());
+    }
+
+    /**
+     * The leading request's output: every byte goes to the shared file first. If the leading
+     * client hangs up, the export carries on into the file for the requests following it.
+     */
+    private static final class LeaderOutput extends OutputStream {
+
+        private final OutputStream file;
+        private final OutputStream client;
+        private boolean clientGone;
+
+        LeaderOutput(OutputStream file, OutputStream client) {
+            this.file = file;
+            this.client = client;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            file.write(b);
+            if (!clientGone) {
+                try {
+                    client.write(b);
+                } catch (IOException e) {
+                    clientGone = true;
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            file.write(b, off, len);
+            if (!clientGone) {
+                try {
+                    client.write(b, off, len);
+                } catch (IOException e) {
+                    clientGone = true;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            file.flush();
+            if (!clientGone) {
+                try {
+                    client.flush();
+                } catch (IOException e) {
+                    clientGone = true;
+                }
+            }
+        }
+    }
+
+    // Only unlinks the file: channels handed out by open() keep reading it until they are closed
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export cache file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.compulynx.studentdata.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses exports on the fly at {@code app.export.compression.level} (1-9; 0 turns
+ * negotiated compression off). Output is deflated as it is written and goes out block by
+ * block, so a compressed export is never held whole in memory.
+ */
+@Component
+public class ExportCompressor {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int level;
+
+    public ExportCompressor(@Value("${app.export.compression.level:6}") int level) {
+        this.level = level;
+    }
+
+    /**
+     * The coding to send for the client's {@code Accept-Encoding}: gzip or deflate, whichever
+     * it weighs higher (gzip on a tie), or null for the identity coding.
+     */
+    public String negotiate(HttpHeaders request) {
+        if (level == 0) {
+            return null;
+        }
+        Double gzip = null;
+        Double deflate = null;
+        Double any = null;
+        for (String value : request.getValuesAsList(HttpHeaders.ACCEPT_ENCODING)) {
+            String[] parameters = value.split(";");
+            double weight = weight(parameters);
+            switch (parameters[0].trim().toLowerCase(Locale.ROOT)) {
+                case GZIP, "x-gzip" -> gzip = weight;
+                case DEFLATE -> deflate = weight;
+                case "*" -> any = weight;
+                default -> {
+                }
+            }
+        }
+        double gzipWeight = gzip != null ? gzip : any != null ? any : 0;
+        double deflateWeight = deflate != null ? deflate : any != null ? any : 0;
+        if (gzipWeight > 0 && gzipWeight >= deflateWeight) {
+            return GZIP;
+        }
+        return deflateWeight > 0 ? DEFLATE : null;
+    }
+
+    /** Wraps {@code writer} so that what it writes reaches the output compressed with {@code encoding}. */
+    public ExportCache.ExportWriter compress(String encoding, ExportCache.ExportWriter writer) {
+        return out -> {
+            Deflater deflater = new Deflater(Math.max(level, 1), GZIP.equals(encoding));
+            try {
+                // syncFlush, so flushes the export makes (after a CSV header, say) still reach the client
+                DeflaterOutputStream compressed = GZIP.equals(encoding)
+                        ? new LeveledGzipOutputStream(out, deflater)
+                        : new DeflaterOutputStream(out, deflater, BUFFER_SIZE, true);
+                writer.write(compressed);
+                compressed.finish();
+                compressed.flush();
+            } finally {
+                deflater.end();
+            }
+        };
+    }
+
+    private static double weight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /** GZIPOutputStream only takes a compression level through its deflater, which it does not expose. */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream out, Deflater deflater) throws IOException {
+            super(out, BUFFER_SIZE, true);
+            def.end();
+            def = deflater;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.compulynx.studentdata.service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * One export being written to a file while any number of readers follow it. The writer
+ * publishes its bytes in 64KB steps; readers copy whatever has been published and wait for
+ * more until the flight completes or fails. Readers open the file before the writer can
+ * delete it, so they finish even if the file is unlinked under them.
+ */
+final class ExportFlight {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private long published;
+    private boolean done;
+    private IOException failure;
+
+    ExportFlight(Path file) throws IOException {
+        this.file = Files.createFile(file);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /** Output for the export itself; closing it flushes but does not complete the flight. */
+    OutputStream output() throws IOException {
+        return new BufferedOutputStream(new FilterOutputStream(Files.newOutputStream(file)) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                publish(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                publish(len);
+            }
+        }, BUFFER_SIZE);
+    }
+
+    synchronized void complete() {
+        done = true;
+        notifyAll();
+    }
+
+    synchronized void fail(IOException e) {
+        failure = e;
+        done = true;
+        notifyAll();
+    }
+
+    /** Copies the flight to {@code out} from {@code channel} as bytes are published, returning once all are copied. */
+    void follow(FileChannel channel, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = 0;
+        long available;
+        while ((available = awaitBeyond(position)) > position) {
+            while (position < available) {
+                position += channel.transferTo(position, available - position, target);
+            }
+        }
+    }
+
+    private synchronized void publish(long bytes) {
+        published += bytes;
+        notifyAll();
+    }
+
+    private synchronized long awaitBeyond(long position) throws IOException {
+        try {
+            while (published == position && !done) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a shared export");
+        }
+        if (failure != null) {
+            throw new IOException("Shared export failed", failure);
+        }
+        return published;
+    }
+}
@@ -0,0 +1,143 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.ExportFormat;
+import com.compulynx.studentdata.model.ExportJobState;
+import com.compulynx.studentdata.model.ExportJobStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * An export running in the background into a file of the managed output directory. Progress
+ * is the number of bytes written so far; subscribers get it pushed as server-sent events
+ * until the job finishes.
+ */
+public final class ExportJob {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String id;
+    private final ExportFormat format;
+    private final Path file;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile ExportJobState state = ExportJobState.QUEUED;
+    private volatile long bytesWritten;
+    private volatile String error;
+    private volatile long finishedAt;
+    private volatile Future<?> task;
+
+    ExportJob(String id, ExportFormat format, Path file) {
+        this.id = id;
+        this.format = format;
+        this.file = file;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public ExportFormat format() {
+        return format;
+    }
+
+    public ExportJobState state() {
+        return state;
+    }
+
+    public ExportJobStatus status() {
+        return new ExportJobStatus(id, format, state, bytesWritten, error);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long finishedAt() {
+        return finishedAt;
+    }
+
+    Future<?> task() {
+        return task;
+    }
+
+    void task(Future<?> task) {
+        this.task = task;
+    }
+
+    /** Moves a queued job to running; false if it was cancelled before it got a thread. */
+    synchronized boolean start() {
+        if (state != ExportJobState.QUEUED) {
+            return false;
+        }
+        state = ExportJobState.RUNNING;
+        return true;
+    }
+
+    /** Ends the job unless it already ended, and sends the final status to every subscriber. */
+    boolean finish(ExportJobState finalState, String error) {
+        synchronized (this) {
+            if (state.finished()) {
+                return false;
+            }
+            this.error = error;
+            this.finishedAt = System.currentTimeMillis();
+            this.state = finalState;
+        }
+        publish();
+        return true;
+    }
+
+    /** The artifact's output, counting bytes as they reach the file. */
+    OutputStream output() throws IOException {
+        return new BufferedOutputStream(new FilterOutputStream(Files.newOutputStream(file)) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesWritten++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytesWritten += len;
+            }
+        }, BUFFER_SIZE);
+    }
+
+    void subscribe(SseEmitter emitter) {
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        // A job that finished in the meantime would never publish again
+        publish();
+    }
+
+    /** Sends the current status to every subscriber, completing them all once the job has finished. */
+    void publish() {
+        ExportJobStatus status = status();
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name("progress").data(status));
+                if (status.state().finished()) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away
+                subscribers.remove(emitter);
+            }
+        }
+        if (status.state().finished()) {
+            subscribers.clear();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.ExportJobNotFoundException;
+import com.compulynx.studentdata.exception.ExportJobNotReadyException;
+import com.compulynx.studentdata.model.ExportFormat;
+import com.compulynx.studentdata.model.ExportJobState;
+import com.compulynx.studentdata.model.SheetLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Exports run outside the request: a job is submitted, writes its artifact into the
+ * managed output directory on the export job pool, and can be downloaded once done.
+ * Finished jobs and their artifacts are removed after {@code app.export.jobs.ttl}; artifacts
+ * left over from before a restart are removed at startup.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+    private static final String JOB_DIRECTORY = "exports";
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final ExportService exportService;
+    private final FilePathService filePathService;
+    private final AsyncTaskExecutor exportJobExecutor;
+
+    @Value("${app.export.jobs.ttl:PT1H}")
+    private Duration ttl;
+
+    public ExportJobService(ExportService exportService, FilePathService filePathService,
+                            @Qualifier("exportJobExecutor") AsyncTaskExecutor exportJobExecutor) throws IOException {
+        this.exportService = exportService;
+        this.filePathService = filePathService;
+        this.exportJobExecutor = exportJobExecutor;
+        // Jobs live in memory only, so artifacts left by an earlier run can never be downloaded or expired
+        Path directory = filePathService.resolveDirectory().resolve(JOB_DIRECTORY);
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(ExportJobService::deleteQuietly);
+            }
+        }
+    }
+
+    /** Queues an export taking the same filters as the streaming export of {@code format}. */
+    public ExportJob submit(ExportFormat format, Long studentId, String studentClass, SheetLayout sheets,
+                            int workers, boolean gzip) throws IOException {
+        ExportCache.ExportWriter writer = switch (format) {
+            case EXCEL -> out -> exportService.exportExcel(sheets, workers, out);
+            case CSV -> out -> exportService.exportCsv(studentId, studentClass, workers, out);
+            case PDF -> out -> exportService.exportPdf(workers, out);
+            case BUNDLE -> out -> exportService.exportBundle(gzip, out);
+            case ARROW -> exportService::exportArrow;
+        };
+        Path directory = filePathService.resolveDirectory().resolve(JOB_DIRECTORY);
+        Files.createDirectories(directory);
+        String id = UUID.randomUUID().toString();
+        ExportJob job = new ExportJob(id, format, directory.resolve(id + format.extension()));
+        job.task(exportJobExecutor.submit(() -> run(job, writer)));
+        jobs.put(id, job);
+        return job;
+    }
+
+    public ExportJob get(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ExportJobNotFoundException(id);
+        }
+        return job;
+    }
+
+    /** The finished artifact, resolved through the output directory's path checks. */
+    public Path artifact(String id) throws IOException {
+        ExportJob job = get(id);
+        if (job.state() != ExportJobState.DONE) {
+            throw new ExportJobNotReadyException(id, job.state());
+        }
+        return filePathService.resolveManagedFile(JOB_DIRECTORY + "/" + job.file().getFileName());
+    }
+
+    /** Pushes the job's status now, every {@code app.export.jobs.progress-interval} and when it finishes. */
+    public SseEmitter subscribe(String id) {
+        ExportJob job = get(id);
+        SseEmitter emitter = new SseEmitter();
+        job.subscribe(emitter);
+        return emitter;
+    }
+
+    public void cancel(String id) throws IOException {
+        ExportJob job = get(id);
+        if (job.finish(ExportJobState.CANCELLED, null)) {
+            job.task().cancel(true);
+            Files.deleteIfExists(job.file());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.export.jobs.progress-interval:PT1S}")
+    public void publishProgress() {
+        for (ExportJob job : jobs.values()) {
+            if (!job.state().finished()) {
+                job.publish();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.export.jobs.cleanup-interval:PT1M}")
+    public void expireJobs() {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        for (ExportJob job : jobs.values()) {
+            if (job.state().finished() && job.finishedAt() <= cutoff) {
+                jobs.remove(job.id());
+                try {
+                    Files.deleteIfExists(job.file());
+                } catch (IOException e) {
+                    log.warn("Could not remove artifact of export job {}", job.id(), e);
+                }
+            }
+        }
+    }
+
+    private void run(ExportJob job, ExportCache.ExportWriter writer) {
+        if (!job.start()) {
+            return;
+        }
+        try (OutputStream out = job.output()) {
+            writer.write(out);
+        } catch (Exception e) {
+            if (job.finish(ExportJobState.FAILED, e.getMessage())) {
+                log.warn("Export job {} failed", job.id(), e);
+            }
+            deleteQuietly(job.file());
+            return;
+        }
+        if (!job.finish(ExportJobState.DONE, null)) {
+            // Cancelled while the last bytes were being written
+            deleteQuietly(job.file());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // removed again when the job expires
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.compulynx.studentdata.service;
 
-import com.compulynx.studentdata.model.Student;
-import com.compulynx.studentdata.repository.StudentRepository;
+import com.compulynx.studentdata.model.ClassSummary;
+import com.compulynx.studentdata.model.SheetLayout;
+import com.compulynx.studentdata.model.StudentRow;
+import com.compulynx.studentdata.model.StudentSummary;
+import com.compulynx.studentdata.repository.StudentBulkReader;
+import com.compulynx.studentdata.repository.StudentRowSink;
+import com.compulynx.studentdata.repository.StudentSnapshotScanner;
 import com.opencsv.CSVWriter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -10,123 +17,601 @@ import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+/**
+ * Writes exports straight into the response stream. Students come from a
+ * {@link StudentBulkReader} cursor as plain rows, so memory stays flat however large
+ * the table is.
+ */
 @Service
 public class ExportService {
 
-    private final StudentRepository studentRepository;
+    private static final String[] CSV_HEADER = {"studentId", "firstName", "lastName", "dob", "class", "score"};
+    private static final String[] SUMMARY_HEADER = {"class", "students", "scored", "averageScore", "minScore",
+            "medianScore", "p90Score", "maxScore"};
+    private static final String REPORT_TITLE = "Student Report";
+    private static final String UNASSIGNED_SHEET = "Unassigned";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUNDLE_FORMATS = 3;
 
-    public ExportService(StudentRepository studentRepository) {
-        this.studentRepository = studentRepository;
+    private final StudentBulkReader studentBulkReader;
+    private final StudentSnapshotScanner studentSnapshotScanner;
+    private final StudentSummaryService studentSummaryService;
+    private final AsyncTaskExecutor exportExecutor;
+    private final AsyncTaskExecutor bundleExecutor;
+    private final Semaphore bundleThreads;
+    private final int maxWorkers;
+    private final int pdfBlockPages;
+    private final int arrowBatchRows;
+
+    public ExportService(StudentBulkReader studentBulkReader, StudentSnapshotScanner studentSnapshotScanner,
+                         StudentSummaryService studentSummaryService,
+                         @Qualifier("exportExecutor") AsyncTaskExecutor exportExecutor,
+                         @Qualifier("bundleExecutor") ThreadPoolTaskExecutor bundleExecutor,
+                         @Value("${app.export.threads:4}") int maxWorkers,
+                         @Value("${app.export.pdf-block-pages:50}") int pdfBlockPages,
+                         @Value("${app.export.arrow-batch-rows:65536}") int arrowBatchRows) {
+        this.studentBulkReader = studentBulkReader;
+        this.studentSnapshotScanner = studentSnapshotScanner;
+        this.studentSummaryService = studentSummaryService;
+        this.exportExecutor = exportExecutor;
+        if (bundleExecutor.getMaxPoolSize() < BUNDLE_FORMATS) {
+            throw new IllegalStateException("app.export.bundle-threads must be at least " + BUNDLE_FORMATS);
+        }
+        this.bundleExecutor = bundleExecutor;
+        this.bundleThreads = new Semaphore(bundleExecutor.getMaxPoolSize(), true);
+        this.maxWorkers = maxWorkers;
+        this.pdfBlockPages = pdfBlockPages;
+        this.arrowBatchRows = arrowBatchRows;
+    }
+
+    /**
+     * xlsx export that never overflows a sheet. {@link SheetLayout#ROLLOVER} cuts the students
+     * into {@code workers} id ranges of one snapshot and {@link SheetLayout#BY_CLASS} reads
+     * every class on its own, with students without a class on an "Unassigned" sheet last;
+     * either way the parts are rendered concurrently, continued on a new sheet at Excel's row
+     * limit, and zipped into one workbook. The id ranges run on into each
+     * other's sheets, so the sheets are the same for any number of workers.
+     */
+    public void exportExcel(SheetLayout layout, int requestedWorkers, OutputStream out) throws IOException {
+        int workers = workers(requestedWorkers);
+        try (XlsxExportWriter workbook = new XlsxExportWriter()) {
+            if (layout == SheetLayout.BY_CLASS) {
+                List<String> classes = new ArrayList<>(studentBulkReader.classes());
+                if (studentBulkReader.hasUnassigned()) {
+                    classes.add(null);
+                }
+                StudentRowSink[] sinks = new StudentRowSink[classes.size()];
+                for (int part = 0; part < sinks.length; part++) {
+                    String studentClass = classes.get(part);
+                    sinks[part] = workbook.addPart(studentClass != null ? studentClass : UNASSIGNED_SHEET);
+                }
+                studentSnapshotScanner.scanByClass(classes, part -> sinks[part], workbook::completePart);
+            } else {
+                List<StudentRowSink> sinks = workbook.addParts("students", workers);
+                studentSnapshotScanner.scan(workers, null, null, sinks::get, workbook::completePart);
+            }
+            workbook.writeTo(out, exportExecutor, workers);
+        }
+    }
+
+    /**
+     * CSV of the students matching the list endpoint's filters. On PostgreSQL the database
+     * writes the CSV itself through COPY; elsewhere rows are formatted here.
+     */
+    public void exportCsv(Long studentId, String studentClass, OutputStream out) throws IOException {
+        if (studentBulkReader.copyCsv(studentId, studentClass, out)) {
+            return;
+        }
+        CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csvWriter.writeNext(CSV_HEADER, false);
+        csvWriter.flush(); // first bytes go out before the query has been read
+        studentBulkReader.scan(studentId, studentClass, student -> csvWriter.writeNext(csvRow(student), false));
+        csvWriter.flush();
+    }
+
+    /**
+     * CSV export read by {@code workers} connections at once from one shared snapshot. Each
+     * worker COPYs its id range into a temp file; finished parts are appended to the response
+     * in id order while later ones are still being read. Falls back to the serial export
+     * where snapshots are unavailable.
+     */
+    public void exportCsv(Long studentId, String studentClass, int requestedWorkers, OutputStream out)
+            throws IOException {
+        int workers = workers(requestedWorkers);
+        if (workers == 1) {
+            exportCsv(studentId, studentClass, out);
+            return;
+        }
+        Path[] parts = new Path[workers];
+        OutputStream[] outputs = new OutputStream[workers];
+        try {
+            for (int part = 0; part < workers; part++) {
+                parts[part] = Files.createTempFile("students-export-", ".csv");
+                outputs[part] = Files.newOutputStream(parts[part]);
+            }
+            boolean copied = studentSnapshotScanner.copyCsv(workers, studentId, studentClass, part -> outputs[part],
+                    part -> {
+                        if (part == 0) {
+                            out.write((String.join(",", CSV_HEADER) + "\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                        outputs[part].close();
+                        Files.copy(parts[part], out);
+                    });
+            if (!copied) {
+                exportCsv(studentId, studentClass, out);
+            }
+        } finally {
+            deleteParts(parts, outputs);
+        }
+    }
+
+    /**
+     * PDF report of every student. The document is backed by a scratch file rather than the
+     * heap, each page is one text object laid out by leading, and the finished file is written
+     * through a buffer straight into {@code out}.
+     */
+    public void exportPdf(OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            PdfPageWriter pages = new PdfPageWriter(document, REPORT_TITLE, 1);
+            StringBuilder line = new StringBuilder(128);
+            studentBulkReader.scan(null, null, student -> pages.writeLine(formatStudent(student, line)));
+            pages.close();
+            BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+            document.save(buffered);
+            buffered.flush();
+        }
+    }
+
+    /**
+     * PDF report laid out on {@code workers} threads. The ordered rows are cut into blocks of
+     * whole pages, each block is rendered into its own document on the export pool, and the
+     * blocks are merged in order. Pages hold a fixed number of lines, so every block knows its
+     * first page number up front and the numbering runs on across blocks.
+     */
+    public void exportPdf(int requestedWorkers, OutputStream out) throws IOException {
+        int workers = workers(requestedWorkers);
+        if (workers == 1) {
+            exportPdf(out);
+            return;
+        }
+        try (PdfBlockRenderer blocks = new PdfBlockRenderer(workers)) {
+            studentBulkReader.scan(null, null, blocks);
+            blocks.finish();
+
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (Path block : blocks.files) {
+                merger.addSource(block.toFile());
+            }
+            BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+            merger.setDestinationStream(buffered);
+            merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+            buffered.flush();
+        }
+    }
+
+    /**
+     * Arrow IPC stream of every student with native column types, for analytics tools to read
+     * as is. Rows go from the cursor into record batches of {@code app.export.arrow-batch-rows},
+     * each written out as soon as it fills.
+     */
+    public void exportArrow(OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        ArrowStreamWriter arrow = new ArrowStreamWriter(buffered, studentBulkReader.classes(), arrowBatchRows);
+        studentBulkReader.scan(null, null, arrow);
+        arrow.finish();
+    }
+
+    /**
+     * Zip of the CSV, xlsx and PDF exports of every student, read in one scan. Rows are
+     * broadcast to the three format writers as they arrive, so the bundle takes about as long
+     * as the slowest writer rather than three scans. With {@code gzip} the CSV is gzipped.
+     * The writers run on {@code app.export.bundle-threads}; a bundle waits for three free threads.
+     */
+    public void exportBundle(boolean gzip, OutputStream out) throws IOException {
+        Path csv = Files.createTempFile("students-export-", gzip ? ".csv.gz" : ".csv");
+        Path xlsx = Files.createTempFile("students-export-", ".xlsx");
+        Path pdf = Files.createTempFile("students-export-", ".pdf");
+        try {
+            try (StudentRowBroadcaster broadcaster = new StudentRowBroadcaster(bundleExecutor, bundleThreads, List.of(
+                    rows -> writeCsv(rows, csv, gzip),
+                    rows -> writeXlsx(rows, xlsx),
+                    rows -> writePdf(rows, pdf)))) {
+                studentBulkReader.scan(null, null, broadcaster);
+                broadcaster.finish();
+            }
+
+            ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+            addToZip(zip, gzip ? "students.csv.gz" : "students.csv", csv, !gzip);
+            // Both are compressed already
+            addToZip(zip, "students.xlsx", xlsx, false);
+            addToZip(zip, "students.pdf", pdf, false);
+            zip.finish();
+            zip.flush();
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(xlsx);
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    /**
+     * Requested worker counts are clamped to {@code app.export.threads}: each worker holds a
+     * temp file and, when scanning, a snapshot transaction on its own pooled connection.
+     */
+    private int workers(int requested) {
+        return Math.max(1, Math.min(requested, maxWorkers));
+    }
+
+    private static void writeCsv(StudentRowBroadcaster.Rows rows, Path file, boolean gzip) throws IOException {
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        if (gzip) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+        try (CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+            csvWriter.writeNext(CSV_HEADER, false);
+            rows.forEach(student -> csvWriter.writeNext(csvRow(student), false));
+        }
+    }
+
+    private static void writeXlsx(StudentRowBroadcaster.Rows rows, Path file) throws IOException {
+        try (XlsxExportWriter workbook = new XlsxExportWriter();
+             OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            rows.forEach(workbook.addPart("students"));
+            workbook.completePart(0);
+            // The bundle's writer thread compresses its own sheets
+            workbook.writeTo(stream, new SyncTaskExecutor(), 1);
+        }
+    }
+
+    private static void writePdf(StudentRowBroadcaster.Rows rows, Path file) throws IOException {
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            PdfPageWriter pages = new PdfPageWriter(document, REPORT_TITLE, 1);
+            StringBuilder line = new StringBuilder(128);
+            rows.forEach(student -> pages.writeLine(formatStudent(student, line)));
+            pages.close();
+            document.save(file.toFile());
+        }
+    }
+
+    private static void addToZip(ZipOutputStream zip, String name, Path file, boolean compress) throws IOException {
+        zip.setLevel(compress ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+        zip.putNextEntry(new ZipEntry(name));
+        Files.copy(file, zip);
+        zip.closeEntry();
     }
 
-    public byte[] exportExcel() throws IOException {
-        List<Student> students = studentRepository.findAll();
-        try (Workbook workbook = new SXSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("students");
-            createHeader(sheet);
-            int rowIdx = 1;
-            for (Student student : students) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(student.getStudentId());
-                row.createCell(1).setCellValue(student.getFirstName());
-                row.createCell(2).setCellValue(student.getLastName());
-                row.createCell(3).setCellValue(student.getDob() != null ? student.getDob().toString() : "");
-                row.createCell(4).setCellValue(student.getStudentClass());
-                row.createCell(5).setCellValue(student.getScore());
+    /** One page or so of per-class statistics instead of every student. */
+    public void exportSummaryPdf(OutputStream out) throws IOException {
+        StudentSummary summary = studentSummaryService.summarize();
+        try (PDDocument document = new PDDocument()) {
+            PdfPageWriter pages = new PdfPageWriter(document, "Student Summary", 1);
+            for (ClassSummary group : summary.classes()) {
+                writeSummary(pages, group);
             }
+            writeSummary(pages, summary.overall());
+            pages.close();
+            document.save(out);
+        }
+    }
+
+    /** Per-class statistics on one sheet, score histograms and birth years on two more. */
+    public void exportSummaryExcel(OutputStream out) throws IOException {
+        StudentSummary summary = studentSummaryService.summarize();
+        List<ClassSummary> groups = new ArrayList<>(summary.classes());
+        groups.add(summary.overall());
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Summary");
+            writeRow(sheet, 0, SUMMARY_HEADER);
+            for (int i = 0; i < groups.size(); i++) {
+                ClassSummary group = groups.get(i);
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(group.studentClass());
+                row.createCell(1).setCellValue(group.students());
+                row.createCell(2).setCellValue(group.scored());
+                Double[] scores = {group.averageScore(), toDouble(group.minScore()), group.medianScore(),
+                        group.p90Score(), toDouble(group.maxScore())};
+                for (int column = 0; column < scores.length; column++) {
+                    if (scores[column] != null) {
+                        row.createCell(3 + column).setCellValue(scores[column]);
+                    }
+                }
+            }
+            writeDistribution(workbook.createSheet("Scores"), "scoreBucket", groups,
+                    ClassSummary::scoreHistogram, ExportService::bucketLabel);
+            writeDistribution(workbook.createSheet("Birth years"), "dobYear", groups,
+                    ClassSummary::dobYears, String::valueOf);
             workbook.write(out);
-            return out.toByteArray();
         }
     }
 
-    public byte[] exportCsv() throws IOException {
-        List<Student> students = studentRepository.findAll();
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-             OutputStreamWriter writer = new OutputStreamWriter(out);
-             CSVWriter csvWriter = new CSVWriter(writer)) {
-            String[] header = {"studentId", "firstName", "lastName", "dob", "class", "score"};
-            csvWriter.writeNext(header, false);
-            for (Student student : students) {
-                csvWriter.writeNext(new String[]{
-                        String.valueOf(student.getStudentId()),
-                        student.getFirstName(),
-                        student.getLastName(),
-                        student.getDob() != null ? student.getDob().toString() : "",
-                        student.getStudentClass(),
-                        student.getScore() != null ? student.getScore().toString() : ""
-                }, false);
+    private static void writeSummary(PdfPageWriter pages, ClassSummary group) throws IOException {
+        pages.writeLine(group.studentClass() + ": " + group.students() + " students, " + group.scored() + " scored");
+        if (group.scored() > 0) {
+            pages.writeLine("  Score average " + decimal(group.averageScore()) + ", min " + group.minScore()
+                    + ", median " + decimal(group.medianScore()) + ", p90 " + decimal(group.p90Score())
+                    + ", max " + group.maxScore());
+        }
+        for (Map.Entry<Integer, Long> bucket : group.scoreHistogram().entrySet()) {
+            pages.writeLine("  Score " + bucketLabel(bucket.getKey()) + ": " + bucket.getValue());
+        }
+        for (Map.Entry<Integer, Long> year : group.dobYears().entrySet()) {
+            pages.writeLine("  Born " + year.getKey() + ": " + year.getValue());
+        }
+        pages.writeLine("");
+    }
+
+    /** One row per key found in any group, one column per group. */
+    private static void writeDistribution(Sheet sheet, String keyHeader, List<ClassSummary> groups,
+                                          Function<ClassSummary, SortedMap<Integer, Long>> values,
+                                          IntFunction<String> keyLabel) {
+        String[] header = new String[groups.size() + 1];
+        header[0] = keyHeader;
+        SortedSet<Integer> keys = new TreeSet<>();
+        for (int i = 0; i < groups.size(); i++) {
+            header[i + 1] = groups.get(i).studentClass();
+            keys.addAll(values.apply(groups.get(i)).keySet());
+        }
+        writeRow(sheet, 0, header);
+        int rowIndex = 1;
+        for (int key : keys) {
+            Row row = sheet.createRow(rowIndex++);
+            row.createCell(0).setCellValue(keyLabel.apply(key));
+            for (int i = 0; i < groups.size(); i++) {
+                row.createCell(i + 1).setCellValue(values.apply(groups.get(i)).getOrDefault(key, 0L));
             }
-            csvWriter.flush();
-            return out.toByteArray();
         }
     }
 
-    public byte[] exportPdf() throws IOException {
-        List<Student> students = studentRepository.findAll();
-        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            PDPage page = new PDPage(PDRectangle.LETTER);
-            document.addPage(page);
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            float y = writeTitle(contentStream, page);
-            for (Student student : students) {
-                if (y < 50) {
-                    contentStream.close();
-                    page = new PDPage(PDRectangle.LETTER);
-                    document.addPage(page);
-                    contentStream = new PDPageContentStream(document, page);
-                    y = writeTitle(contentStream, page);
+    private static void writeRow(Sheet sheet, int rowIndex, String[] values) {
+        Row row = sheet.createRow(rowIndex);
+        for (int column = 0; column < values.length; column++) {
+            row.createCell(column).setCellValue(values[column]);
+        }
+    }
+
+    private static String[] csvRow(StudentRow student) {
+        return new String[]{
+                String.valueOf(student.studentId()),
+                student.firstName(),
+                student.lastName(),
+                student.dob() != null ? student.dob().toString() : "",
+                student.studentClass(),
+                student.score() != null ? student.score().toString() : ""
+        };
+    }
+
+    private static String bucketLabel(int lowerBound) {
+        return lowerBound + "-" + (lowerBound + 9);
+    }
+
+    private static String decimal(Double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static Double toDouble(Integer value) {
+        return value != null ? value.doubleValue() : null;
+    }
+
+    private static void renderPdfBlock(List<String> lines, int firstPage, Path file) throws IOException {
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            PdfPageWriter pages = new PdfPageWriter(document, REPORT_TITLE, firstPage);
+            for (String line : lines) {
+                pages.writeLine(line);
+            }
+            pages.close();
+            document.save(file.toFile());
+        }
+    }
+
+    private static void deleteParts(Path[] parts, OutputStream[] outputs) {
+        for (int part = 0; part < parts.length; part++) {
+            try {
+                if (outputs[part] != null) {
+                    outputs[part].close();
+                }
+                if (parts[part] != null) {
+                    Files.deleteIfExists(parts[part]);
+                }
+            } catch (IOException ignored) {
+                // temp file, nothing else to do
+            }
+        }
+    }
+
+    /** Fills {@code line} with one report line; reused across rows instead of formatting a new string. */
+    private static String formatStudent(StudentRow student, StringBuilder line) {
+        line.setLength(0);
+        line.append(student.studentId())
+                .append(" | ").append(student.firstName()).append(' ').append(student.lastName())
+                .append(" | ");
+        if (student.dob() != null) {
+            line.append(student.dob());
+        }
+        line.append(" | ").append(student.studentClass())
+                .append(" | ").append(student.score());
+        return line.toString();
+    }
+
+    /**
+     * Collects report lines into blocks of {@code pdfBlockPages} pages and renders each full
+     * block into a temp file on the export pool, keeping at most two blocks per worker in flight.
+     */
+    private final class PdfBlockRenderer implements StudentRowSink, Closeable {
+
+        private final int blockLines = pdfBlockPages * PdfPageWriter.LINES_PER_PAGE;
+        private final int maxPending;
+        private final StringBuilder line = new StringBuilder(128);
+        private final List<Path> files = new ArrayList<>();
+        private final Deque<Future<?>> pending = new ArrayDeque<>();
+        private List<String> lines = new ArrayList<>(blockLines);
+
+        PdfBlockRenderer(int workers) {
+            this.maxPending = workers * 2;
+        }
+
+        @Override
+        public void accept(StudentRow student) throws IOException {
+            lines.add(formatStudent(student, line));
+            if (lines.size() == blockLines) {
+                submit();
+            }
+        }
+
+        /** Renders the last partial block, or a title page for an empty report, and waits for every block. */
+        void finish() throws IOException {
+            if (!lines.isEmpty() || files.isEmpty()) {
+                submit();
+            }
+            while (!pending.isEmpty()) {
+                awaitOldest();
+            }
+        }
+
+        private void submit() throws IOException {
+            if (pending.size() == maxPending) {
+                awaitOldest();
+            }
+            Path file = Files.createTempFile("students-export-", ".pdf");
+            files.add(file);
+            List<String> block = lines;
+            int firstPage = (files.size() - 1) * pdfBlockPages + 1;
+            lines = new ArrayList<>(blockLines);
+            pending.add(exportExecutor.submit(() -> {
+                renderPdfBlock(block, firstPage, file);
+                return null;
+            }));
+        }
+
+        private void awaitOldest() throws IOException {
+            try {
+                pending.remove().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while rendering PDF pages");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("PDF rendering failed", e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            pending.forEach(block -> block.cancel(true));
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // temp file, nothing else to do
                 }
-                contentStream.beginText();
-                contentStream.newLineAtOffset(40, y);
-                contentStream.showText(formatStudent(student));
-                contentStream.endText();
-                y -= 14;
             }
+        }
+    }
+
+    /** Lays out report lines top to bottom, starting a new titled and numbered page when one fills up. */
+    private static final class PdfPageWriter {
+
+        private static final float LEADING = 14;
+        // Lines start 60pt below the top edge and stop above a 50pt bottom margin
+        static final int LINES_PER_PAGE = (int) ((PDRectangle.LETTER.getHeight() - 60 - 50) / LEADING) + 1;
+
+        private final PDDocument document;
+        private final String title;
+        private PDPageContentStream contentStream;
+        private int pageNumber;
+        private int lines;
+
+        PdfPageWriter(PDDocument document, String title, int firstPage) throws IOException {
+            this.document = document;
+            this.title = title;
+            this.pageNumber = firstPage - 1;
+            newPage();
+        }
+
+        void writeLine(String text) throws IOException {
+            if (lines == LINES_PER_PAGE) {
+                endPage();
+                newPage();
+            }
+            contentStream.showText(text);
+            contentStream.newLine();
+            lines++;
+        }
+
+        void close() throws IOException {
+            endPage();
+        }
+
+        // All lines of a page share one text object; newLine() moves down by the leading
+        private void newPage() throws IOException {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            contentStream = new PDPageContentStream(document, page);
+            float y = writeTitle(contentStream, page, title);
+            pageNumber++;
+            contentStream.beginText();
+            contentStream.newLineAtOffset(page.getMediaBox().getWidth() - 80, 25);
+            contentStream.showText("Page " + pageNumber);
+            contentStream.endText();
+            contentStream.beginText();
+            contentStream.setLeading(LEADING);
+            contentStream.newLineAtOffset(40, y);
+            lines = 0;
+        }
+
+        private void endPage() throws IOException {
+            contentStream.endText();
             contentStream.close();
-            document.save(out);
-            return out.toByteArray();
-        }
-    }
-
-    private String formatStudent(Student student) {
-        return String.format("%d | %s %s | %s | %s | %s",
-                student.getStudentId(),
-                student.getFirstName(),
-                student.getLastName(),
-                student.getDob() != null ? student.getDob() : "",
-                student.getStudentClass(),
-                student.getScore());
-    }
-
-    private void createHeader(Sheet sheet) {
-        Row header = sheet.createRow(0);
-        header.createCell(0).setCellValue("studentId");
-        header.createCell(1).setCellValue("firstName");
-        header.createCell(2).setCellValue("lastName");
-        header.createCell(3).setCellValue("dob");
-        header.createCell(4).setCellValue("class");
-        header.createCell(5).setCellValue("score");
-    }
-
-    private float writeTitle(PDPageContentStream contentStream, PDPage page) throws IOException {
-        float y = page.getMediaBox().getHeight() - 40;
-        contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-        contentStream.beginText();
-        contentStream.newLineAtOffset(40, y);
-        contentStream.showText("Student Report");
-        contentStream.endText();
-        y -= 20;
-        contentStream.setFont(PDType1Font.HELVETICA, 10);
-        return y;
+        }
+
+        private static float writeTitle(PDPageContentStream contentStream, PDPage page, String title) throws IOException {
+            float y = page.getMediaBox().getHeight() - 40;
+            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
+            contentStream.beginText();
+            contentStream.newLineAtOffset(40, y);
+            contentStream.showText(title);
+            contentStream.endText();
+            y -= 20;
+            contentStream.setFont(PDType1Font.HELVETICA, 10);
+            return y;
+        }
     }
 }
@@ -1,10 +1,13 @@
 package com.compulynx.studentdata.service;
 
+import com.compulynx.studentdata.exception.InvalidFileReferenceException;
+import com.compulynx.studentdata.exception.ManagedFileNotFoundException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
@@ -31,6 +34,31 @@ public class FilePathService {
         return dir;
     }
 
+    /**
+     * Resolves a file name, or a path inside the output directory, to an existing file.
+     * References that escape the directory, directly or through a symlink, are rejected.
+     */
+    public Path resolveManagedFile(String reference) throws IOException {
+        Path directory = resolveDirectory().toRealPath();
+        Path candidate;
+        try {
+            candidate = directory.resolve(reference).normalize();
+        } catch (InvalidPathException e) {
+            throw new InvalidFileReferenceException("Invalid file reference: " + reference);
+        }
+        if (!candidate.startsWith(directory)) {
+            throw new InvalidFileReferenceException("File is outside the output directory: " + reference);
+        }
+        if (!Files.isRegularFile(candidate)) {
+            throw new ManagedFileNotFoundException(reference);
+        }
+        Path real = candidate.toRealPath();
+        if (!real.startsWith(directory)) {
+            throw new InvalidFileReferenceException("File is outside the output directory: " + reference);
+        }
+        return real;
+    }
+
     public Path buildFilePath(String prefix, String extension) throws IOException {
         Path directory = resolveDirectory();
         String filename = prefix + "-" + LocalDateTime.now().format(FORMATTER) + extension;
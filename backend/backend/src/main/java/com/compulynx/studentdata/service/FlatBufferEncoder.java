@@ -0,0 +1,244 @@
+package com.compulynx.studentdata.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Just enough of a FlatBuffers encoder for Arrow IPC metadata: tables, strings, vectors of
+ * tables and vectors of long pairs. Objects are laid out front to back, each one after the object
+ * referring to it, which keeps every offset forward as the format requires; scalars, tables and
+ * vectors are aligned to their natural boundaries so strict verifiers accept the result.
+ */
+final class FlatBufferEncoder {
+
+    private FlatBufferEncoder() {
+    }
+
+    /** A table under construction; fields are addressed by their slot in the schema, unions taking two. */
+    static final class Table {
+
+        private final List<Field> fields = new ArrayList<>();
+
+        Table addByte(int slot, int value) {
+            fields.add(new Field(slot, 1, value, null));
+            return this;
+        }
+
+        Table addShort(int slot, int value) {
+            fields.add(new Field(slot, 2, value, null));
+            return this;
+        }
+
+        Table addInt(int slot, int value) {
+            fields.add(new Field(slot, 4, value, null));
+            return this;
+        }
+
+        Table addLong(int slot, long value) {
+            fields.add(new Field(slot, 8, value, null));
+            return this;
+        }
+
+        Table addBoolean(int slot, boolean value) {
+            return addByte(slot, value ? 1 : 0);
+        }
+
+        Table addTable(int slot, Table table) {
+            fields.add(new Field(slot, 4, 0, table));
+            return this;
+        }
+
+        Table addString(int slot, String value) {
+            fields.add(new Field(slot, 4, 0, value));
+            return this;
+        }
+
+        Table addTables(int slot, List<Table> tables) {
+            fields.add(new Field(slot, 4, 0, new TableVector(tables)));
+            return this;
+        }
+
+        /** A vector of structs of two longs each, such as Arrow's FieldNode and Buffer, given flattened. */
+        Table addLongPairs(int slot, long[] values) {
+            fields.add(new Field(slot, 4, 0, new LongVector(values)));
+            return this;
+        }
+    }
+
+    private record Field(int slot, int size, long value, Object child) {
+    }
+
+    private record TableVector(List<Table> tables) {
+    }
+
+    private record LongVector(long[] values) {
+    }
+
+    private record Pending(Object node, int patch) {
+    }
+
+    /** Encodes {@code root} as a complete buffer, padded to a multiple of 8 bytes. */
+    static byte[] encode(Table root) {
+        Output out = new Output();
+        out.putInt(0);
+        Deque<Pending> pending = new ArrayDeque<>();
+        pending.add(new Pending(root, 0));
+        while (!pending.isEmpty()) {
+            Pending next = pending.remove();
+            int position = write(out, next.node(), pending);
+            out.setInt(next.patch(), position - next.patch());
+        }
+        out.align(8);
+        return out.toByteArray();
+    }
+
+    private static int write(Output out, Object node, Deque<Pending> pending) {
+        if (node instanceof Table table) {
+            return writeTable(out, table, pending);
+        }
+        if (node instanceof String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.align(4);
+            int position = out.position();
+            out.putInt(bytes.length);
+            out.put(bytes);
+            out.put(new byte[]{0});
+            return position;
+        }
+        if (node instanceof TableVector vector) {
+            out.align(4);
+            int position = out.position();
+            out.putInt(vector.tables().size());
+            for (Table table : vector.tables()) {
+                pending.add(new Pending(table, out.position()));
+                out.putInt(0);
+            }
+            return position;
+        }
+        LongVector vector = (LongVector) node;
+        // The length prefix goes right before 8-byte aligned elements
+        out.align(8);
+        out.putInt(0);
+        int position = out.position();
+        out.putInt(vector.values().length / 2);
+        for (long value : vector.values()) {
+            out.putLong(value);
+        }
+        return position;
+    }
+
+    private static int writeTable(Output out, Table table, Deque<Pending> pending) {
+        List<Field> fields = new ArrayList<>(table.fields);
+        fields.sort(Comparator.comparingInt(Field::size).reversed());
+        int slots = fields.stream().mapToInt(Field::slot).max().orElse(-1) + 1;
+        int[] offsets = new int[slots];
+        int[] fieldOffsets = new int[fields.size()];
+        int size = 4; // the vtable offset
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            size = (size + field.size() - 1) / field.size() * field.size();
+            fieldOffsets[i] = size;
+            offsets[field.slot()] = size;
+            size += field.size();
+        }
+
+        out.align(2);
+        int vtable = out.position();
+        out.putShort(4 + 2 * slots);
+        out.putShort(size);
+        for (int offset : offsets) {
+            out.putShort(offset);
+        }
+        out.align(8);
+        int position = out.position();
+        out.putInt(position - vtable);
+        out.put(new byte[size - 4]);
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            int at = position + fieldOffsets[i];
+            if (field.child() != null) {
+                pending.add(new Pending(field.child(), at));
+                continue;
+            }
+            switch (field.size()) {
+                case 1 -> out.setByte(at, (int) field.value());
+                case 2 -> out.setShort(at, (int) field.value());
+                case 4 -> out.setInt(at, (int) field.value());
+                default -> out.setLong(at, field.value());
+            }
+        }
+        return position;
+    }
+
+    private static final class Output {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+        int position() {
+            return buffer.position();
+        }
+
+        void align(int alignment) {
+            while (buffer.position() % alignment != 0) {
+                put(new byte[]{0});
+            }
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putShort(int value) {
+            ensure(2);
+            buffer.putShort((short) value);
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void setByte(int position, int value) {
+            buffer.put(position, (byte) value);
+        }
+
+        void setShort(int position, int value) {
+            buffer.putShort(position, (short) value);
+        }
+
+        void setInt(int position, int value) {
+            buffer.putInt(position, value);
+        }
+
+        void setLong(int position, long value) {
+            buffer.putLong(position, value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+    }
+}
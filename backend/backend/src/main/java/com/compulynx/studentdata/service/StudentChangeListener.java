@@ -0,0 +1,27 @@
+package com.compulynx.studentdata.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Reports every JPA insert, update and delete of a student to {@link DatasetVersion}.
+ * Hibernate creates it through Spring, which passes in the application's dataset version;
+ * a JPA-only context without one has no cache to keep fresh.
+ */
+public class StudentChangeListener {
+
+    private final ObjectProvider<DatasetVersion> datasetVersion;
+
+    public StudentChangeListener(ObjectProvider<DatasetVersion> datasetVersion) {
+        this.datasetVersion = datasetVersion;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void studentChanged(Object student) {
+        datasetVersion.ifAvailable(DatasetVersion::changed);
+    }
+}
@@ -0,0 +1,282 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.UploadRejectedException;
+import com.compulynx.studentdata.model.DuplicatePolicy;
+import com.compulynx.studentdata.model.ValidationReport;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Producer half of the upload pipeline: turns uploaded CSV records into COPY rows
+ * (score + 5, then a content hash of the row) written directly into recycled
+ * {@link CopyBufferPipe} chunks. Fields that need it are re-quoted for COPY's CSV format.
+ * Repeated student ids are caught in-stream with a {@link StudentIdBitmap}; under
+ * last-wins the later copies are spilled to a side file, prefixed with their line
+ * number, and applied after the main COPY.
+ * <p>
+ * Records that fail {@link StudentRecordValidator} reject the upload, or are skipped and
+ * counted if the validator skips invalid records.
+ * <p>
+ * When resuming, rows up to {@code committedLines} are already in the table: only their
+ * repeated ids are replayed, so duplicate handling sees the same history as the first run.
+ */
+final class StudentCopyEncoder {
+
+    static final int FIELD_COUNT = 6;
+    static final int SCORE_INCREMENT = 5;
+
+    private static final int ROW_OVERHEAD = 40; // separators, growth of the score digits and the hash column
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final CopyBufferPipe pipe;
+    private final DuplicatePolicy duplicatePolicy;
+    private final long committedLines;
+    private final StudentRecordValidator validator;
+    private final StudentIdBitmap seenIds = new StudentIdBitmap();
+    private int duplicates;
+    private Path lateRows;
+    private OutputStream lateRowsOut;
+    private CopyBufferPipe.Chunk scratch;
+
+    StudentCopyEncoder(CopyBufferPipe pipe, DuplicatePolicy duplicatePolicy) {
+        this(pipe, duplicatePolicy, 0);
+    }
+
+    StudentCopyEncoder(CopyBufferPipe pipe, DuplicatePolicy duplicatePolicy, long committedLines) {
+        this(pipe, duplicatePolicy, committedLines, new StudentRecordValidator(StudentRecordValidator.Rules.defaults(), false));
+    }
+
+    StudentCopyEncoder(CopyBufferPipe pipe, DuplicatePolicy duplicatePolicy, long committedLines,
+                       StudentRecordValidator validator) {
+        this.pipe = pipe;
+        this.duplicatePolicy = duplicatePolicy;
+        this.committedLines = committedLines;
+        this.validator = validator;
+    }
+
+    /** Encodes the input and returns the number of rows handed to COPY. */
+    int encode(InputStreamSource source) throws Exception {
+        try (CsvRecordReader reader = openReader(source)) {
+            CopyBufferPipe.Chunk chunk = pipe.acquire();
+            int count = 0;
+
+            // Skip header
+            reader.next();
+
+            while (reader.next()) {
+                if (!validator.validate(reader)) {
+                    continue;
+                }
+                long studentId = validator.studentId();
+                if (!seenIds.add(studentId)) {
+                    handleDuplicate(studentId, reader);
+                    continue;
+                }
+                if (reader.recordNumber() <= committedLines) {
+                    continue;
+                }
+                if (chunk.remaining() < maxRowLength(reader)) {
+                    if (chunk.length == 0) {
+                        throw new IOException("CSV record " + reader.recordNumber() + " does not fit a COPY chunk");
+                    }
+                    pipe.publish(chunk);
+                    chunk = pipe.acquire();
+                }
+                appendRecord(chunk, reader);
+                chunk.lastLine = reader.recordNumber();
+                count++;
+            }
+
+            if (chunk.length > 0) {
+                pipe.publish(chunk);
+            } else {
+                pipe.release(chunk);
+            }
+            if (lateRowsOut != null) {
+                lateRowsOut.close();
+            }
+            pipe.complete();
+            return count;
+        } catch (Exception | Error e) {
+            pipe.fail(e);
+            discardLateRows();
+            throw e;
+        }
+    }
+
+    /** Resources such as files expose a channel; anything else is read as a stream. */
+    private static CsvRecordReader openReader(InputStreamSource source) throws IOException {
+        if (source instanceof Resource resource && resource.isFile()) {
+            return new CsvRecordReader(resource.readableChannel());
+        }
+        return new CsvRecordReader(source.getInputStream());
+    }
+
+    int duplicates() {
+        return duplicates;
+    }
+
+    ValidationReport validation() {
+        return validator.report();
+    }
+
+    /** CSV of (line, record) for repeated ids under last-wins, or null if there were none. */
+    Path lateRows() {
+        return lateRows;
+    }
+
+    void discardLateRows() {
+        try {
+            if (lateRowsOut != null) {
+                lateRowsOut.close();
+            }
+            if (lateRows != null) {
+                Files.deleteIfExists(lateRows);
+            }
+        } catch (IOException ignored) {
+            // temp file, nothing else to do
+        }
+        lateRows = null;
+    }
+
+    private void handleDuplicate(long studentId, CsvRecordReader reader) throws IOException {
+        duplicates++;
+        switch (duplicatePolicy) {
+            case REJECT -> throw new UploadRejectedException(
+                    "Duplicate studentId " + studentId + " on line " + reader.recordNumber());
+            case LAST_WINS -> spillLateRow(reader);
+            case FIRST_WINS -> {
+                // keep the row already sent to COPY
+            }
+        }
+    }
+
+    private void spillLateRow(CsvRecordReader reader) throws IOException {
+        if (lateRowsOut == null) {
+            lateRows = Files.createTempFile("students-late-rows-", ".csv");
+            lateRowsOut = new BufferedOutputStream(Files.newOutputStream(lateRows), pipe.chunkSize());
+            scratch = new CopyBufferPipe.Chunk(pipe.chunkSize());
+        }
+        if (scratch.data.length < maxRowLength(reader) + 20) {
+            scratch = new CopyBufferPipe.Chunk(maxRowLength(reader) + 20);
+        }
+        scratch.length = 0;
+        appendLong(scratch, reader.recordNumber());
+        scratch.data[scratch.length++] = ',';
+        appendRecord(scratch, reader);
+        lateRowsOut.write(scratch.data, 0, scratch.length);
+    }
+
+    private void appendRecord(CopyBufferPipe.Chunk chunk, CsvRecordReader reader) {
+        long hash = appendRow(chunk, reader, validator.score());
+        chunk.data[chunk.length++] = ',';
+        appendLong(chunk, hash);
+        chunk.data[chunk.length++] = '\n';
+        chunk.rows++;
+    }
+
+    /**
+     * Upper bound of the encoded size of the current record: quoting can at most double
+     * a field, plus separators, score growth and the hash column.
+     */
+    static int maxRowLength(CsvRecordReader reader) {
+        return 2 * reader.recordLength() + ROW_OVERHEAD;
+    }
+
+    /**
+     * Appends the current record's text fields and adjusted score as a COPY row without
+     * the hash column, and returns the row's {@link #rowHash}. {@code score} is the one
+     * {@link StudentRecordValidator} parsed for the record. The batch insert fallback
+     * hashes through here too, so both paths store the same row_hash for the same row.
+     */
+    static long appendRow(CopyBufferPipe.Chunk chunk, CsvRecordReader reader, int score) {
+        byte[] buffer = reader.buffer();
+        int rowStart = chunk.length;
+        for (int field = 0; field < FIELD_COUNT - 1; field++) {
+            appendField(chunk, buffer, reader.start(field), reader.end(field));
+            chunk.data[chunk.length++] = ',';
+        }
+        appendLong(chunk, score + SCORE_INCREMENT);
+        return rowHash(chunk.data, rowStart, chunk.length);
+    }
+
+    /**
+     * Appends a trimmed field, quoted only when it holds a comma, quote or line break so
+     * plain values are a straight copy and an empty field still reads as NULL.
+     */
+    private static void appendField(CopyBufferPipe.Chunk chunk, byte[] buffer, int start, int end) {
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        byte[] data = chunk.data;
+        if (!needsQuotes(buffer, start, end)) {
+            int length = end - start;
+            System.arraycopy(buffer, start, data, chunk.length, length);
+            chunk.length += length;
+            return;
+        }
+        int out = chunk.length;
+        data[out++] = '"';
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '"') {
+                data[out++] = '"';
+            }
+            data[out++] = b;
+        }
+        data[out++] = '"';
+        chunk.length = out;
+    }
+
+    private static boolean needsQuotes(byte[] buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b == ',' || b == '"' || b == '\n' || b == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 63-bit FNV-1a of an encoded row, as stored in students.row_hash. Computed over the
+     * normalized row so whitespace or line ending differences in the upload don't count
+     * as a change.
+     */
+    static long rowHash(byte[] data, int start, int end) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = start; i < end; i++) {
+            hash ^= data[i] & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash & Long.MAX_VALUE;
+    }
+
+    private static void appendLong(CopyBufferPipe.Chunk chunk, long value) {
+        byte[] data = chunk.data;
+        if (value < 0) {
+            data[chunk.length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int pos = chunk.length + digits;
+        for (int i = 0; i < digits; i++) {
+            data[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        chunk.length += digits;
+    }
+}
@@ -0,0 +1,137 @@
+package com.compulynx.studentdata.service;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of student ids in the spirit of a roaring bitmap. Ids are grouped by their
+ * high 48 bits; each group of 65,536 ids lives in a sorted {@code char[]} while sparse and in a
+ * 8KB {@code long[]} bitmap once dense. Dense sequential ids cost roughly one bit each,
+ * 10M ids fit in about 1.3MB, and nothing is boxed.
+ */
+final class StudentIdBitmap {
+
+    private static final int ARRAY_LIMIT = 4096; // a char[] of this size matches the 8KB bitmap
+    private static final int BITMAP_WORDS = 1024;
+
+    private long[] keys = new long[16];
+    private Object[] containers = new Object[16]; // char[] (sorted) or long[BITMAP_WORDS]
+    private int[] cardinalities = new int[16];
+    private int size;
+    private int lastIndex = -1;
+
+    /** Adds the id and returns false if it was already present. */
+    boolean add(long id) {
+        long key = id >>> 16;
+        char low = (char) id;
+        int index = containerIndex(key);
+        Object container = containers[index];
+
+        if (container instanceof long[] bitmap) {
+            long mask = 1L << low;
+            int word = low >>> 6;
+            if ((bitmap[word] & mask) != 0) {
+                return false;
+            }
+            bitmap[word] |= mask;
+            cardinalities[index]++;
+            return true;
+        }
+
+        char[] values = (char[]) container;
+        int cardinality = cardinalities[index];
+        int position = Arrays.binarySearch(values, 0, cardinality, low);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (cardinality == ARRAY_LIMIT) {
+            long[] bitmap = toBitmap(values, cardinality);
+            bitmap[low >>> 6] |= 1L << low;
+            containers[index] = bitmap;
+        } else {
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+                containers[index] = values;
+            }
+            System.arraycopy(values, position, values, position + 1, cardinality - position);
+            values[position] = low;
+        }
+        cardinalities[index]++;
+        return true;
+    }
+
+    boolean contains(long id) {
+        int index = findIndex(id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[] bitmap) {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[index], low) >= 0;
+    }
+
+    long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cardinalities[i];
+        }
+        return total;
+    }
+
+    /** Approximate heap footprint of the container payloads. */
+    long sizeInBytes() {
+        long bytes = (long) keys.length * (Long.BYTES + Integer.BYTES + 4);
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i] instanceof long[] ? BITMAP_WORDS * Long.BYTES : ((char[]) containers[i]).length * 2L;
+        }
+        return bytes;
+    }
+
+    private int containerIndex(long key) {
+        // Uploads are mostly ordered, so the previous container is the usual hit
+        if (lastIndex >= 0 && keys[lastIndex] == key) {
+            return lastIndex;
+        }
+        int index = findIndex(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key);
+        }
+        lastIndex = index;
+        return index;
+    }
+
+    private int findIndex(long key) {
+        if (lastIndex >= 0 && keys[lastIndex] == key) {
+            return lastIndex;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+            cardinalities = Arrays.copyOf(cardinalities, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = new char[4];
+        cardinalities[index] = 0;
+        size++;
+    }
+
+    private static long[] toBitmap(char[] values, int cardinality) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            char value = values[i];
+            bitmap[value >>> 6] |= 1L << value;
+        }
+        return bitmap;
+    }
+}
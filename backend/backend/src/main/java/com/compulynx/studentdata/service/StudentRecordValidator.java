@@ -0,0 +1,246 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.UploadRejectedException;
+import com.compulynx.studentdata.model.ValidationReport;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks uploaded records against the students schema before they are loaded: a positive
+ * student id, both name fields present (they may be blank, names are nullable), an ISO date
+ * of birth and a score inside the configured ranges, and a class of Class1 to Class5. Values
+ * are parsed straight from the reader's buffer, and the parsed id, date and score are kept
+ * for the caller so nothing is parsed twice.
+ * <p>
+ * By default the first invalid record rejects the upload with its line number. With
+ * {@code skipInvalid}, invalid records are left out instead, counted per column and listed
+ * by line in the {@link #report}.
+ */
+final class StudentRecordValidator {
+
+    static final String[] COLUMNS = {"studentId", "firstName", "lastName", "dob", "class", "score"};
+    static final long INVALID = Long.MIN_VALUE;
+
+    private static final int STUDENT_ID = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int DOB = 3;
+    private static final int CLASS = 4;
+    private static final int SCORE = 5;
+    private static final long DAYS_0000_TO_1970 = 719_528;
+    private static final byte[] CLASS_PREFIX = {'C', 'l', 'a', 's', 's'};
+
+    /**
+     * @param minScore / maxScore inclusive range of the uploaded score, before the +5 adjustment
+     * @param minDob / maxDob     inclusive range of the date of birth as epoch days
+     */
+    record Rules(int minScore, int maxScore, long minDob, long maxDob) {
+
+        static Rules defaults() {
+            return new Rules(0, 100, LocalDate.of(1900, 1, 1).toEpochDay(), LocalDate.now().toEpochDay());
+        }
+    }
+
+    private final Rules rules;
+    private final boolean skipInvalid;
+    private final int[] columnErrors = new int[COLUMNS.length];
+    private final List<Long> rejectedLines = new ArrayList<>();
+    private int recordErrors; // bit per column of the current record
+    private int rejected;
+    private long studentId;
+    private long dob;
+    private int score;
+
+    StudentRecordValidator(Rules rules, boolean skipInvalid) {
+        this.rules = rules;
+        this.skipInvalid = skipInvalid;
+    }
+
+    /**
+     * Validates the reader's current record; returns false and counts its errors if it is
+     * invalid and invalid records are skipped. Empty lines are skipped without being counted.
+     *
+     * @throws UploadRejectedException if the record is invalid and invalid records are not skipped
+     */
+    boolean validate(CsvRecordReader reader) {
+        if (reader.recordLength() == 0) {
+            return false;
+        }
+        byte[] buffer = reader.buffer();
+        int fields = Math.min(reader.fieldCount(), COLUMNS.length);
+        boolean valid = true;
+        recordErrors = 0;
+        for (int missing = fields; missing < COLUMNS.length; missing++) {
+            valid &= check(false, missing);
+        }
+
+        if (fields > STUDENT_ID) {
+            studentId = parseNumber(buffer, reader.start(STUDENT_ID), reader.end(STUDENT_ID));
+            valid &= check(studentId > 0, STUDENT_ID);
+        }
+        if (fields > DOB) {
+            dob = parseEpochDay(buffer, reader.start(DOB), reader.end(DOB));
+            valid &= check(dob != INVALID && dob >= rules.minDob() && dob <= rules.maxDob(), DOB);
+        }
+        if (fields > CLASS) {
+            valid &= check(isClass(buffer, reader.start(CLASS), reader.end(CLASS)), CLASS);
+        }
+        if (fields > SCORE) {
+            long value = parseNumber(buffer, reader.start(SCORE), reader.end(SCORE));
+            valid &= check(value != INVALID && value >= rules.minScore() && value <= rules.maxScore(), SCORE);
+            score = (int) value;
+        }
+
+        if (!valid) {
+            if (!skipInvalid) {
+                List<String> columns = new ArrayList<>();
+                for (int column = 0; column < COLUMNS.length; column++) {
+                    if ((recordErrors & 1 << column) != 0) {
+                        columns.add(COLUMNS[column]);
+                    }
+                }
+                throw new UploadRejectedException(
+                        "Invalid " + String.join(", ", columns) + " on line " + reader.recordNumber());
+            }
+            rejected++;
+            if (rejectedLines.size() < ValidationReport.MAX_REJECTED_LINES) {
+                rejectedLines.add(reader.recordNumber());
+            }
+        }
+        return valid;
+    }
+
+    /** Student id of the last valid record. */
+    long studentId() {
+        return studentId;
+    }
+
+    /** Date of birth of the last valid record, as epoch days. */
+    long dob() {
+        return dob;
+    }
+
+    /** Uploaded score of the last valid record. */
+    int score() {
+        return score;
+    }
+
+    ValidationReport report() {
+        Map<String, Integer> errors = new LinkedHashMap<>();
+        for (int column = 0; column < COLUMNS.length; column++) {
+            if (columnErrors[column] > 0) {
+                errors.put(COLUMNS[column], columnErrors[column]);
+            }
+        }
+        return new ValidationReport(rejected, errors, List.copyOf(rejectedLines));
+    }
+
+    private boolean check(boolean ok, int column) {
+        if (!ok) {
+            columnErrors[column]++;
+            recordErrors |= 1 << column;
+        }
+        return ok;
+    }
+
+    /** Optionally signed integer of up to 18 digits, or {@link #INVALID}. Surrounding whitespace is ignored. */
+    static long parseNumber(byte[] buffer, int start, int end) {
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        boolean negative = start < end && buffer[start] == '-';
+        if (negative || (start < end && buffer[start] == '+')) {
+            start++;
+        }
+        if (start == end || end - start > 18) {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /** ISO {@code yyyy-MM-dd} date as epoch days, or {@link #INVALID}; same result as {@code LocalDate.parse(..).toEpochDay()}. */
+    static long parseEpochDay(byte[] buffer, int start, int end) {
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        if (end - start != 10 || buffer[start + 4] != '-' || buffer[start + 7] != '-') {
+            return INVALID;
+        }
+        int year = digits(buffer, start, 4);
+        int month = digits(buffer, start + 5, 2);
+        int day = digits(buffer, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        // LocalDate.toEpochDay for a non-negative year
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total -= isLeap(year) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static int digits(byte[] buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /** Class1 to Class5, ignoring surrounding whitespace. */
+    private static boolean isClass(byte[] buffer, int start, int end) {
+        while (start < end && (buffer[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        if (end - start != CLASS_PREFIX.length + 1) {
+            return false;
+        }
+        for (int i = 0; i < CLASS_PREFIX.length; i++) {
+            if (buffer[start + i] != CLASS_PREFIX[i]) {
+                return false;
+            }
+        }
+        byte number = buffer[end - 1];
+        return number >= '1' && number <= '5';
+    }
+}
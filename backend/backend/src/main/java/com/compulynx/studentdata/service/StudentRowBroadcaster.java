@@ -0,0 +1,177 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.StudentRow;
+import com.compulynx.studentdata.repository.StudentRowSink;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds the rows of one scan to several writers running at once. Rows are handed over in
+ * blocks, and every writer has a short queue of its own, so the scan runs as fast as the
+ * slowest writer and memory is bounded by the queues whatever the table size.
+ * <p>
+ * Writers run on a shared pool, and each must get a thread at once: a writer left queued for
+ * a free pool thread while the scan waits on its full queue would never start. So a broadcast
+ * first takes one permit per writer from a semaphore holding as many permits as the pool has
+ * threads, and waits there, before any of its writers is queued, until all of them can run.
+ */
+final class StudentRowBroadcaster implements StudentRowSink, Closeable {
+
+    /** Rows passed to a writer at a time. */
+    static final int BLOCK_ROWS = 1024;
+
+    private static final int QUEUED_BLOCKS = 8;
+    private static final List<StudentRow> END = List.of();
+
+    /** Writes one output from the rows it is handed. */
+    @FunctionalInterface
+    interface FormatWriter {
+
+        void write(Rows rows) throws IOException;
+    }
+
+    /** The broadcast rows as one writer sees them. */
+    @FunctionalInterface
+    interface Rows {
+
+        /** Passes every row to {@code sink}, waiting for the scan as needed; may be called once. */
+        void forEach(StudentRowSink sink) throws IOException;
+    }
+
+    private final List<Channel> channels = new ArrayList<>();
+    private final Semaphore threads;
+    private List<StudentRow> block = new ArrayList<>(BLOCK_ROWS);
+
+    /**
+     * Starts every writer on {@code executor} once {@code threads}, which must hold no more
+     * permits than the executor has threads, has a permit for each of them.
+     */
+    StudentRowBroadcaster(AsyncTaskExecutor executor, Semaphore threads, List<FormatWriter> writers)
+            throws IOException {
+        this.threads = threads;
+        try {
+            threads.acquire(writers.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for export writer threads");
+        }
+        try {
+            for (FormatWriter writer : writers) {
+                Channel channel = new Channel();
+                channel.task = executor.submit(() -> {
+                    if (!channel.claimed.compareAndSet(false, true)) {
+                        return null;
+                    }
+                    try {
+                        writer.write(channel::forEach);
+                        return null;
+                    } finally {
+                        threads.release();
+                    }
+                });
+                channels.add(channel);
+            }
+        } catch (RuntimeException e) {
+            threads.release(writers.size() - channels.size());
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void accept(StudentRow row) throws IOException {
+        block.add(row);
+        if (block.size() == BLOCK_ROWS) {
+            send(block);
+            block = new ArrayList<>(BLOCK_ROWS);
+        }
+    }
+
+    /** Sends the last rows and the end of the scan, then waits for every writer to finish. */
+    void finish() throws IOException {
+        if (!block.isEmpty()) {
+            send(block);
+        }
+        send(END);
+        for (Channel channel : channels) {
+            await(channel.task);
+        }
+    }
+
+    private void send(List<StudentRow> rows) throws IOException {
+        for (Channel channel : channels) {
+            try {
+                while (!channel.queue.offer(rows, 100, TimeUnit.MILLISECONDS)) {
+                    // A writer that stopped early would otherwise leave the scan blocked on its queue
+                    if (channel.task.isDone()) {
+                        await(channel.task);
+                        throw new IOException("Export writer stopped before the end of the rows");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while broadcasting rows");
+            }
+        }
+    }
+
+    private static void await(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for export writers");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Export writer failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops any writer still running, for instance after the scan failed. A running writer
+     * gives its permit back when it ends; one that never started gives it back here.
+     */
+    @Override
+    public void close() {
+        for (Channel channel : channels) {
+            channel.task.cancel(true);
+            if (channel.claimed.compareAndSet(false, true)) {
+                threads.release();
+            }
+        }
+    }
+
+    private static final class Channel {
+
+        private final BlockingQueue<List<StudentRow>> queue = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<?> task;
+
+        void forEach(StudentRowSink sink) throws IOException {
+            try {
+                for (List<StudentRow> rows = queue.take(); rows != END; rows = queue.take()) {
+                    for (StudentRow row : rows) {
+                        sink.accept(row);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for rows");
+            }
+        }
+    }
+}
@@ -17,7 +17,18 @@ public class StudentService {
     }
 
     public Page<Student> getStudents(Long studentId, String studentClass, int page, int size) {
+        return getStudents(studentId, studentClass, null, page, size);
+    }
+
+    /**
+     * With {@code asOfBatch}, reads the students as they stood after that upload batch.
+     * Without it, reads the live students table, which batch uploads never write to.
+     */
+    public Page<Student> getStudents(Long studentId, String studentClass, Long asOfBatch, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
+        if (asOfBatch != null) {
+            return studentRepository.searchAsOfBatch(asOfBatch, studentId, studentClass, pageable);
+        }
         return studentRepository.search(studentId, studentClass, pageable);
     }
 }
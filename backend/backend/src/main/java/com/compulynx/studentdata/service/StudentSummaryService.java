@@ -0,0 +1,103 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.ClassSummary;
+import com.compulynx.studentdata.model.StudentSummary;
+import com.compulynx.studentdata.repository.StudentBulkReader;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Per-class summaries built from grouped counts. The database does the only full pass; the
+ * exact score and birth-year distributions it returns are small enough that every statistic,
+ * percentiles included, is computed here from them without touching individual rows.
+ */
+@Service
+public class StudentSummaryService {
+
+    static final String NO_CLASS = "(no class)";
+    private static final int BUCKET_WIDTH = 10;
+
+    private final StudentBulkReader studentBulkReader;
+
+    public StudentSummaryService(StudentBulkReader studentBulkReader) {
+        this.studentBulkReader = studentBulkReader;
+    }
+
+    public StudentSummary summarize() {
+        Map<String, Distribution> classes = new TreeMap<>();
+        Distribution overall = new Distribution();
+        studentBulkReader.countGroups((studentClass, score, dobYear, students) -> {
+            String name = studentClass != null ? studentClass : NO_CLASS;
+            classes.computeIfAbsent(name, key -> new Distribution()).add(score, dobYear, students);
+            overall.add(score, dobYear, students);
+        });
+
+        List<ClassSummary> summaries = new ArrayList<>();
+        classes.forEach((name, distribution) -> summaries.add(distribution.toSummary(name)));
+        return new StudentSummary(summaries, overall.toSummary("All classes"));
+    }
+
+    /** Exact score and birth-year counts of one group of students. */
+    private static final class Distribution {
+
+        private final TreeMap<Integer, Long> scores = new TreeMap<>();
+        private final TreeMap<Integer, Long> dobYears = new TreeMap<>();
+        private long students;
+        private long scored;
+        private long scoreSum;
+
+        void add(Integer score, Integer dobYear, long count) {
+            students += count;
+            if (score != null) {
+                scores.merge(score, count, Long::sum);
+                scored += count;
+                scoreSum += score * count;
+            }
+            if (dobYear != null) {
+                dobYears.merge(dobYear, count, Long::sum);
+            }
+        }
+
+        ClassSummary toSummary(String name) {
+            SortedMap<Integer, Long> histogram = new TreeMap<>();
+            scores.forEach((score, count) ->
+                    histogram.merge(Math.floorDiv(score, BUCKET_WIDTH) * BUCKET_WIDTH, count, Long::sum));
+            return new ClassSummary(name, students, scored,
+                    scored == 0 ? null : (double) scoreSum / scored,
+                    scored == 0 ? null : scores.firstKey(),
+                    scored == 0 ? null : scores.lastKey(),
+                    percentile(0.5),
+                    percentile(0.9),
+                    histogram,
+                    new TreeMap<>(dobYears));
+        }
+
+        /** Linear interpolation between the scores at ranks floor and ceil of p * (n - 1). */
+        private Double percentile(double p) {
+            if (scored == 0) {
+                return null;
+            }
+            double rank = p * (scored - 1);
+            long lowerRank = (long) Math.floor(rank);
+            int lower = scoreAt(lowerRank);
+            int upper = scoreAt(Math.min(lowerRank + 1, scored - 1));
+            return lower + (upper - lower) * (rank - lowerRank);
+        }
+
+        private int scoreAt(long rank) {
+            long seen = 0;
+            for (Map.Entry<Integer, Long> entry : scores.entrySet()) {
+                seen += entry.getValue();
+                if (rank < seen) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("Rank " + rank + " beyond " + scored + " scores");
+        }
+    }
+}
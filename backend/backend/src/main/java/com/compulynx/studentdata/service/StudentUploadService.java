@@ -1,189 +1,736 @@
 package com.compulynx.studentdata.service;
 
+import com.compulynx.studentdata.exception.InvalidFileReferenceException;
+import com.compulynx.studentdata.exception.UploadConflictException;
+import com.compulynx.studentdata.exception.UploadRejectedException;
+import com.compulynx.studentdata.exception.UploadUnavailableException;
+import com.compulynx.studentdata.model.DuplicatePolicy;
 import com.compulynx.studentdata.model.Student;
+import com.compulynx.studentdata.model.UploadBatch;
+import com.compulynx.studentdata.model.UploadMode;
+import com.compulynx.studentdata.model.UploadOptions;
+import com.compulynx.studentdata.model.UploadProgress;
+import com.compulynx.studentdata.model.UploadResult;
 import com.compulynx.studentdata.repository.StudentRepository;
+import com.compulynx.studentdata.repository.UploadBatchRepository;
+import com.compulynx.studentdata.repository.UploadProgressRepository;
 import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.sql.DataSource;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
-import java.io.Writer;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Future;
 
 @Service
 public class StudentUploadService {
 
-    private static final int PIPE_BUFFER_SIZE = 512 * 1024; // 512KB pipe buffer
-    private static final int WRITE_BUFFER_SIZE = 128 * 1024; // 128KB write buffer
+    private static final int CHUNK_SIZE = 64 * 1024; // 64KB COPY chunks
+    private static final int CHUNK_COUNT = 8;        // at most 512KB in flight per upload
+    private static final int DELTA_BATCH_ROWS = 1000; // rows per hash lookup in the delta fallback
+    private static final String COPY_SQL = """
+            COPY students (student_id, first_name, last_name, dob, class, score, row_hash)
+            FROM STDIN WITH (FORMAT csv, NULL '')
+            """;
+
+    private static final String SHADOW_COPY_SQL = """
+            COPY students_shadow (student_id, first_name, last_name, dob, class, score, row_hash)
+            FROM STDIN WITH (FORMAT csv, NULL '', FREEZE)
+            """;
+    private static final String DELTA_COPY_SQL = """
+            COPY students_delta (student_id, first_name, last_name, dob, class, score, row_hash)
+            FROM STDIN WITH (FORMAT csv, NULL '')
+            """;
+    // xmax is 0 only for rows this statement inserted, which separates new students from updates
+    private static final String DELTA_MERGE_SQL = """
+            WITH written AS (
+                INSERT INTO students (student_id, first_name, last_name, dob, class, score, row_hash)
+                SELECT d.student_id, d.first_name, d.last_name, d.dob, d.class, d.score, d.row_hash
+                FROM students_delta d
+                LEFT JOIN students s ON s.student_id = d.student_id
+                WHERE s.row_hash IS DISTINCT FROM d.row_hash
+                ON CONFLICT (student_id) DO UPDATE SET
+                    first_name = EXCLUDED.first_name,
+                    last_name = EXCLUDED.last_name,
+                    dob = EXCLUDED.dob,
+                    class = EXCLUDED.class,
+                    score = EXCLUDED.score,
+                    row_hash = EXCLUDED.row_hash
+                RETURNING xmax = 0 AS created
+            )
+            SELECT count(*) FILTER (WHERE created), count(*) FILTER (WHERE NOT created) FROM written
+            """;
+    private static final String SWAP_LOCK_TIMEOUT = "5s"; // give up rather than queue readers behind the rename
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+    private static final String PROGRESS_SQL = """
+            UPDATE upload_progress SET status = ?, rows_committed = ?, lines_committed = ?, updated_at = ?
+            WHERE upload_id = ?
+            """;
 
     private final StudentRepository studentRepository;
+    private final UploadProgressRepository uploadProgressRepository;
+    private final UploadBatchRepository uploadBatchRepository;
+    private final FilePathService filePathService;
     private final JdbcTemplate jdbcTemplate;
     private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor ingestExecutor;
+    private final DatasetVersion datasetVersion;
 
-    public StudentUploadService(StudentRepository studentRepository, JdbcTemplate jdbcTemplate, DataSource dataSource) {
+    @Value("${app.upload.validation.min-score:0}")
+    private int minScore;
+
+    @Value("${app.upload.validation.max-score:100}")
+    private int maxScore;
+
+    @Value("${app.upload.validation.min-dob:1900-01-01}")
+    private String minDob;
+
+    @Value("${app.upload.validation.max-dob:}")
+    private String maxDob;
+
+    @Value("${app.upload.validation.skip-invalid:false}")
+    private boolean skipInvalid;
+
+    public StudentUploadService(StudentRepository studentRepository, UploadProgressRepository uploadProgressRepository,
+                                UploadBatchRepository uploadBatchRepository, FilePathService filePathService,
+                                JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier("ingestExecutor") AsyncTaskExecutor ingestExecutor,
+                                DatasetVersion datasetVersion) {
         this.studentRepository = studentRepository;
+        this.uploadProgressRepository = uploadProgressRepository;
+        this.uploadBatchRepository = uploadBatchRepository;
+        this.filePathService = filePathService;
         this.jdbcTemplate = jdbcTemplate;
         this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ingestExecutor = ingestExecutor;
+        this.datasetVersion = datasetVersion;
     }
 
-    @Transactional
     public int uploadCsv(MultipartFile file) throws IOException {
-        AtomicInteger insertedCount = new AtomicInteger(0);
-        AtomicReference<Exception> writerException = new AtomicReference<>();
-
-        try (PipedInputStream pipeIn = new PipedInputStream(PIPE_BUFFER_SIZE);
-             PipedOutputStream pipeOut = new PipedOutputStream(pipeIn)) {
-
-            // Writer thread - reads CSV and writes transformed data to pipe
-            Thread writerThread = new Thread(() -> {
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
-                     Writer writer = new OutputStreamWriter(pipeOut, StandardCharsets.UTF_8)) {
-
-                    StringBuilder batch = new StringBuilder(WRITE_BUFFER_SIZE);
-                    String line;
-                    boolean headerSkipped = false;
-                    int count = 0;
-
-                    while ((line = reader.readLine()) != null) {
-                        if (!headerSkipped) {
-                            headerSkipped = true;
-                            continue;
-                        }
+        return upload(file, UploadOptions.defaults()).inserted();
+    }
 
-                        String[] tokens = line.split(",", -1);
-                        if (tokens.length < 6) {
-                            continue;
-                        }
+    public UploadResult upload(InputStreamSource source, UploadOptions options) throws IOException {
+        return upload(UUID.randomUUID().toString(), source, options);
+    }
 
-                        // Transform and append to batch
-                        appendTransformedRecord(batch, tokens);
-                        count++;
+    /**
+     * Ingests a CSV that is already in the output directory, such as the result of
+     * {@code /api/process}, reading it from disk instead of through a client round trip.
+     */
+    public UploadResult uploadManagedFile(String reference, String uploadId, UploadOptions options) throws IOException {
+        Path file = filePathService.resolveManagedFile(reference);
+        if (!file.getFileName().toString().endsWith(".csv")) {
+            throw new InvalidFileReferenceException("Only CSV files can be ingested: " + reference);
+        }
+        return upload(uploadId != null ? uploadId : UUID.randomUUID().toString(), new FileSystemResource(file), options);
+    }
 
-                        // Flush batch periodically
-                        if (count % 5000 == 0) {
-                            writer.write(batch.toString());
-                            batch.setLength(0);
-                        }
-                    }
+    /**
+     * Loads a CSV from any re-readable source. Transactions are managed here rather than by
+     * the caller: COPY runs on its own connection and commits every
+     * {@link UploadOptions#commitInterval()} rows together with the upload's progress record.
+     * Calling this again with the id of a failed upload resumes after the last committed line,
+     * and the batch insert fallback resumes the same way if COPY fails part way through.
+     * The other modes load a side table in a single transaction instead and are never resumed.
+     */
+    public UploadResult upload(String uploadId, InputStreamSource source, UploadOptions options) throws IOException {
+        return upload(uploadId, source, options, ingestExecutor);
+    }
 
-                    // Write remaining records
-                    if (batch.length() > 0) {
-                        writer.write(batch.toString());
+    /**
+     * Like {@link #upload(String, InputStreamSource, UploadOptions)}, encoding on
+     * {@code producers}. Upload sessions pass their own pool: their encoder waits on chunks
+     * the client has not sent yet and must not hold up the ingest pool meanwhile.
+     */
+    UploadResult upload(String uploadId, InputStreamSource source, UploadOptions options,
+                        AsyncTaskExecutor producers) throws IOException {
+        UploadProgress progress = startProgress(uploadId);
+        try {
+            UploadResult result;
+            try {
+                result = switch (options.mode()) {
+                    case MERGE -> copyCsv(uploadId, source, options, progress, producers);
+                    case DELTA -> deltaCsv(uploadId, source, options, producers);
+                    case REPLACE -> reloadCsv(uploadId, source, options, producers);
+                    case BATCH -> batchCsv(uploadId, source, options, producers);
+                };
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Upload interrupted", e);
+            } catch (UploadConflictException e) {
+                throw e;
+            } catch (Exception e) {
+                UploadRejectedException rejected = findRejection(e);
+                if (rejected != null) {
+                    throw rejected;
+                }
+                if (options.mode() == UploadMode.BATCH) {
+                    throw new IOException("Batch upload failed; batches need PostgreSQL partitioning", e);
+                }
+                if (options.mode() == UploadMode.REPLACE && copySupported()) {
+                    // The live table is untouched; reloading it row by row would hold the very
+                    // lock the swap gives up on, for the whole file instead of a rename
+                    if (e instanceof RuntimeException runtime) {
+                        throw runtime;
                     }
+                    throw new IOException("Full reload failed; students are unchanged", e);
+                }
+                // If COPY fails, fall back to batch insert from the last committed line
+                UploadProgress committed = options.mode() == UploadMode.MERGE
+                        ? uploadProgressRepository.findById(uploadId).orElse(progress)
+                        : new UploadProgress(uploadId);
+                result = fallbackBatchInsert(uploadId, source, options, committed);
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            markFailed(uploadId);
+            throw e;
+        } finally {
+            // Even a failed upload may have committed part of its rows
+            datasetVersion.changed();
+        }
+    }
 
-                    insertedCount.set(count);
+    private UploadProgress startProgress(String uploadId) {
+        UploadProgress progress = uploadProgressRepository.findById(uploadId)
+                .orElseGet(() -> new UploadProgress(uploadId));
+        if (progress.getStatus() == UploadProgress.Status.COMPLETE) {
+            throw new UploadConflictException("Upload " + uploadId + " is already complete");
+        }
+        progress.setStatus(UploadProgress.Status.RUNNING);
+        progress.setUpdatedAt(LocalDateTime.now());
+        return uploadProgressRepository.save(progress);
+    }
 
-                } catch (Exception e) {
-                    writerException.set(e);
+    /** Rules come from app.upload.validation; without a max-dob nobody may be born after today. */
+    private StudentRecordValidator newValidator() {
+        LocalDate latest = maxDob == null || maxDob.isBlank() ? LocalDate.now() : LocalDate.parse(maxDob);
+        return new StudentRecordValidator(new StudentRecordValidator.Rules(
+                minScore, maxScore, LocalDate.parse(minDob).toEpochDay(), latest.toEpochDay()), skipInvalid);
+    }
+
+    private void markFailed(String uploadId) {
+        try {
+            jdbcTemplate.update("UPDATE upload_progress SET status = ?, updated_at = ? WHERE upload_id = ?",
+                    UploadProgress.Status.FAILED.name(), Timestamp.valueOf(LocalDateTime.now()), uploadId);
+        } catch (RuntimeException ignored) {
+            // the original failure is the one worth reporting
+        }
+    }
+
+    /**
+     * Streams the CSV into COPY. The encoder fills pooled chunks on {@code producers}
+     * while this thread writes finished chunks straight to the COPY protocol, ending the
+     * COPY and committing at the first chunk boundary past each commit interval.
+     */
+    private UploadResult copyCsv(String uploadId, InputStreamSource source, UploadOptions options,
+                                 UploadProgress committed, AsyncTaskExecutor producers) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement progress = connection.prepareStatement(PROGRESS_SQL)) {
+            connection.setAutoCommit(false);
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            CopyIn copyIn = copyManager.copyIn(COPY_SQL);
+            CopyBufferPipe pipe = new CopyBufferPipe(CHUNK_SIZE, CHUNK_COUNT);
+            StudentCopyEncoder encoder = new StudentCopyEncoder(
+                    pipe, options.duplicatePolicy(), committed.getLinesCommitted(), newValidator());
+            Future<Integer> producer = producers.submit(() -> encoder.encode(source));
+
+            try {
+                long rowsCommitted = committed.getRowsCommitted();
+                long rowsPending = 0;
+                long lastLine = committed.getLinesCommitted();
+                CopyBufferPipe.Chunk chunk;
+                while ((chunk = pipe.take()) != null) {
+                    copyIn.writeToCopy(chunk.data, 0, chunk.length);
+                    rowsPending += chunk.rows;
+                    lastLine = chunk.lastLine;
+                    pipe.release(chunk);
+
+                    if (options.commitInterval() > 0 && rowsPending >= options.commitInterval()) {
+                        copyIn.endCopy();
+                        rowsCommitted += rowsPending;
+                        rowsPending = 0;
+                        recordProgress(progress, uploadId, UploadProgress.Status.RUNNING, rowsCommitted, lastLine);
+                        connection.commit();
+                        copyIn = copyManager.copyIn(COPY_SQL);
+                    }
                 }
-            });
+                copyIn.endCopy();
+                int inserted = producer.get();
+                if (encoder.lateRows() != null) {
+                    applyLateRows(connection, copyManager, encoder.lateRows(), "students");
+                }
+                recordProgress(progress, uploadId, UploadProgress.Status.COMPLETE, rowsCommitted + rowsPending, lastLine);
+                connection.commit();
+                return new UploadResult(uploadId, inserted, encoder.duplicates())
+                        .withValidation(encoder.validation());
+            } catch (Exception | Error e) {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                connection.rollback();
+                throw e;
+            } finally {
+                producer.cancel(true);
+                encoder.discardLateRows();
+            }
+        }
+    }
 
-            writerThread.start();
+    private static void recordProgress(PreparedStatement statement, String uploadId, UploadProgress.Status status,
+                                       long rowsCommitted, long linesCommitted) throws SQLException {
+        statement.setString(1, status.name());
+        statement.setLong(2, rowsCommitted);
+        statement.setLong(3, linesCommitted);
+        statement.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+        statement.setString(5, uploadId);
+        statement.executeUpdate();
+    }
 
-            // Main thread - executes COPY command
-            try (Connection connection = dataSource.getConnection()) {
-                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    /**
+     * Full reload. The file is COPYed with FREEZE into a shadow table created in the same
+     * transaction, so rows are written pre-frozen and no index is maintained per row; the
+     * primary key is built once the data is in and the table is analyzed. A second short
+     * transaction then swaps the tables by rename, so readers see either the old rows or
+     * the new ones, never a partial load. If readers keep the rename waiting past
+     * {@value #SWAP_LOCK_TIMEOUT} the reload fails with 503 and can simply be retried.
+     */
+    private UploadResult reloadCsv(String uploadId, InputStreamSource source, UploadOptions options,
+                                   AsyncTaskExecutor producers) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             PreparedStatement progress = connection.prepareStatement(PROGRESS_SQL)) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try (ResultSet locked = statement.executeQuery("SELECT pg_try_advisory_lock(hashtext('students_reload'))")) {
+                locked.next();
+                if (!locked.getBoolean(1)) {
+                    throw new UploadConflictException("Another full reload of students is running");
+                }
+            }
+
+            try {
+                connection.setAutoCommit(false);
+                statement.execute("DROP TABLE IF EXISTS students_shadow, students_old");
+                statement.execute("CREATE TABLE students_shadow (LIKE students INCLUDING DEFAULTS)");
+                CopyIn copyIn = copyManager.copyIn(SHADOW_COPY_SQL);
+                CopyBufferPipe pipe = new CopyBufferPipe(CHUNK_SIZE, CHUNK_COUNT);
+                StudentCopyEncoder encoder = new StudentCopyEncoder(pipe, options.duplicatePolicy(), 0, newValidator());
+                Future<Integer> producer = producers.submit(() -> encoder.encode(source));
+
+                try {
+                    long lastLine = drain(pipe, copyIn);
+                    int inserted = producer.get();
+                    if (encoder.lateRows() != null) {
+                        applyLateRows(connection, copyManager, encoder.lateRows(), "students_shadow");
+                    }
+                    statement.execute("ALTER TABLE students_shadow ADD CONSTRAINT students_shadow_pkey PRIMARY KEY (student_id)");
+                    statement.execute("ANALYZE students_shadow");
+                    connection.commit();
+
+                    statement.execute("SET LOCAL lock_timeout = '" + SWAP_LOCK_TIMEOUT + "'");
+                    statement.execute("ALTER TABLE students RENAME TO students_old");
+                    statement.execute("ALTER INDEX students_pkey RENAME TO students_old_pkey");
+                    statement.execute("ALTER TABLE students_shadow RENAME TO students");
+                    statement.execute("ALTER INDEX students_shadow_pkey RENAME TO students_pkey");
+                    recordProgress(progress, uploadId, UploadProgress.Status.COMPLETE, inserted, lastLine);
+                    connection.commit();
+
+                    statement.execute("DROP TABLE students_old");
+                    connection.commit();
+                    return new UploadResult(uploadId, inserted, encoder.duplicates())
+                        .withValidation(encoder.validation());
+                } catch (Exception | Error e) {
+                    if (copyIn.isActive()) {
+                        copyIn.cancelCopy();
+                    }
+                    connection.rollback();
+                    statement.execute("DROP TABLE IF EXISTS students_shadow");
+                    connection.commit();
+                    if (e instanceof SQLException sql && LOCK_NOT_AVAILABLE.equals(sql.getSQLState())) {
+                        throw new UploadUnavailableException(
+                                "Timed out waiting for readers of students to swap in the reload; try again", e);
+                    }
+                    throw e;
+                } finally {
+                    producer.cancel(true);
+                    encoder.discardLateRows();
+                }
+            } finally {
+                connection.setAutoCommit(true);
+                statement.execute("SELECT pg_advisory_unlock(hashtext('students_reload'))");
+            }
+        }
+    }
 
-                String copyCommand = """
-                    COPY students (student_id, first_name, last_name, dob, class, score)
-                    FROM STDIN WITH (FORMAT csv, NULL '')
-                    """;
+    /**
+     * Incremental upload. Rows are COPYed with their content hash into a temporary table,
+     * then a single statement writes only those whose hash differs from the stored one,
+     * so unchanged students cost no heap, index or WAL writes.
+     */
+    private UploadResult deltaCsv(String uploadId, InputStreamSource source, UploadOptions options,
+                                  AsyncTaskExecutor producers) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             PreparedStatement progress = connection.prepareStatement(PROGRESS_SQL)) {
+            connection.setAutoCommit(false);
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            statement.execute("CREATE TEMP TABLE students_delta (LIKE students) ON COMMIT DROP");
+            CopyIn copyIn = copyManager.copyIn(DELTA_COPY_SQL);
+            CopyBufferPipe pipe = new CopyBufferPipe(CHUNK_SIZE, CHUNK_COUNT);
+            StudentCopyEncoder encoder = new StudentCopyEncoder(pipe, options.duplicatePolicy(), 0, newValidator());
+            Future<Integer> producer = producers.submit(() -> encoder.encode(source));
+
+            try {
+                long lastLine = drain(pipe, copyIn);
+                int rows = producer.get();
+                if (encoder.lateRows() != null) {
+                    applyLateRows(connection, copyManager, encoder.lateRows(), "students_delta");
+                }
+                int inserted;
+                int updated;
+                try (ResultSet counts = statement.executeQuery(DELTA_MERGE_SQL)) {
+                    counts.next();
+                    inserted = counts.getInt(1);
+                    updated = counts.getInt(2);
+                }
+                recordProgress(progress, uploadId, UploadProgress.Status.COMPLETE, inserted + updated, lastLine);
+                connection.commit();
+                return new UploadResult(uploadId, inserted, updated, rows - inserted - updated, encoder.duplicates())
+                        .withValidation(encoder.validation());
+            } catch (Exception | Error e) {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                connection.rollback();
+                throw e;
+            } finally {
+                producer.cancel(true);
+                encoder.discardLateRows();
+            }
+        }
+    }
 
-                copyManager.copyIn(copyCommand, pipeIn);
+    /**
+     * Stores the file as a new batch. The rows are COPYed with FREEZE into a standalone table
+     * whose batch_id defaults to the new id, keyed and checked after the load, then attached
+     * as a partition of student_versions. The CHECK constraint lets ATTACH skip its validation
+     * scan, and the live students table is not touched.
+     */
+    private UploadResult batchCsv(String uploadId, InputStreamSource source, UploadOptions options,
+                                  AsyncTaskExecutor producers) throws Exception {
+        UploadBatch batch = uploadBatchRepository.save(new UploadBatch(uploadId));
+        long batchId = batch.getBatchId();
+        String partition = UploadBatchService.partitionName(batchId);
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             PreparedStatement progress = connection.prepareStatement(PROGRESS_SQL)) {
+            connection.setAutoCommit(false);
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            statement.execute("CREATE TABLE " + partition + " (LIKE student_versions)");
+            statement.execute("ALTER TABLE " + partition + " ALTER COLUMN batch_id SET DEFAULT " + batchId);
+            CopyIn copyIn = copyManager.copyIn("COPY " + partition
+                    + " (student_id, first_name, last_name, dob, class, score, row_hash)"
+                    + " FROM STDIN WITH (FORMAT csv, NULL '', FREEZE)");
+            CopyBufferPipe pipe = new CopyBufferPipe(CHUNK_SIZE, CHUNK_COUNT);
+            StudentCopyEncoder encoder = new StudentCopyEncoder(pipe, options.duplicatePolicy(), 0, newValidator());
+            Future<Integer> producer = producers.submit(() -> encoder.encode(source));
+
+            try {
+                long lastLine = drain(pipe, copyIn);
+                int inserted = producer.get();
+                if (encoder.lateRows() != null) {
+                    applyLateRows(connection, copyManager, encoder.lateRows(), partition);
+                }
+                statement.execute("ALTER TABLE " + partition + " ADD PRIMARY KEY (student_id)");
+                statement.execute("ALTER TABLE " + partition + " ADD CHECK (batch_id = " + batchId + ")");
+                // Matches student_versions' own index, so ATTACH adopts it instead of building one
+                statement.execute("CREATE INDEX ON " + partition + " (student_id, batch_id DESC)");
+                statement.execute("ANALYZE " + partition);
+                statement.execute("ALTER TABLE student_versions ATTACH PARTITION " + partition
+                        + " FOR VALUES IN (" + batchId + ")");
+                statement.executeUpdate("UPDATE upload_batches SET status = '" + UploadBatch.Status.ACTIVE
+                        + "', row_count = " + inserted + " WHERE batch_id = " + batchId);
+                recordProgress(progress, uploadId, UploadProgress.Status.COMPLETE, inserted, lastLine);
+                connection.commit();
+                return new UploadResult(uploadId, inserted, 0, 0, encoder.duplicates(), batchId)
+                        .withValidation(encoder.validation());
+            } catch (Exception | Error e) {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                connection.rollback();
+                batch.setStatus(UploadBatch.Status.FAILED);
+                uploadBatchRepository.save(batch);
+                throw e;
+            } finally {
+                producer.cancel(true);
+                encoder.discardLateRows();
             }
+        }
+    }
 
-            // Wait for writer to complete
-            writerThread.join();
+    /** Writes every chunk to COPY, ends it, and returns the source line of the last row. */
+    private static long drain(CopyBufferPipe pipe, CopyIn copyIn) throws Exception {
+        long lastLine = 0;
+        CopyBufferPipe.Chunk chunk;
+        while ((chunk = pipe.take()) != null) {
+            copyIn.writeToCopy(chunk.data, 0, chunk.length);
+            lastLine = chunk.lastLine;
+            pipe.release(chunk);
+        }
+        copyIn.endCopy();
+        return lastLine;
+    }
 
-            // Check for writer exceptions
-            if (writerException.get() != null) {
-                throw new IOException("Error processing CSV", writerException.get());
+    /** Last-wins: overwrite rows whose id repeated later in the file, keeping the highest line per id. */
+    private void applyLateRows(Connection connection, CopyManager copyManager, Path lateRows, String table)
+            throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TEMP TABLE students_late_rows (
+                        line BIGINT, student_id BIGINT, first_name VARCHAR(255), last_name VARCHAR(255),
+                        dob DATE, class VARCHAR(255), score INTEGER, row_hash BIGINT)
+                    """);
+            try (InputStream in = Files.newInputStream(lateRows)) {
+                copyManager.copyIn("COPY students_late_rows FROM STDIN WITH (FORMAT csv, NULL '')", in, CHUNK_SIZE);
+                // Delete then insert rather than upsert: the shadow table has no key to conflict on yet
+                statement.executeUpdate("DELETE FROM " + table + " t USING students_late_rows l"
+                        + " WHERE t.student_id = l.student_id");
+                statement.executeUpdate("INSERT INTO " + table + """
+                         (student_id, first_name, last_name, dob, class, score, row_hash)
+                        SELECT DISTINCT ON (student_id) student_id, first_name, last_name, dob, class, score, row_hash
+                        FROM students_late_rows
+                        ORDER BY student_id, line DESC
+                        """);
+            } finally {
+                statement.execute("DROP TABLE IF EXISTS students_late_rows");
             }
+        }
+    }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Upload interrupted", e);
-        } catch (Exception e) {
-            // If COPY fails, fall back to batch insert
-            return fallbackBatchInsert(file);
+    /** COPY, and with it every mode but the row-by-row fallback, needs PostgreSQL. */
+    private boolean copySupported() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            return false;
         }
+    }
 
-        return insertedCount.get();
+    private static UploadRejectedException findRejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UploadRejectedException rejected) {
+                return rejected;
+            }
+        }
+        return null;
     }
 
-    private void appendTransformedRecord(StringBuilder batch, String[] tokens) {
-        String studentId = tokens[0].trim();
-        String firstName = tokens[1].trim();
-        String lastName = tokens[2].trim();
-        String dob = tokens[3].trim();
-        String studentClass = tokens[4].trim();
-        int baseScore = Integer.parseInt(tokens[5].trim());
-        int transformedScore = baseScore + 5;
+    /**
+     * Row-by-row upsert used when COPY is unavailable. Commits follow the same interval as
+     * COPY; lines the progress record already covers only replay their repeated ids.
+     */
+    private UploadResult fallbackBatchInsert(String uploadId, InputStreamSource source, UploadOptions options,
+                                             UploadProgress committed) throws IOException {
+        FallbackState state = new FallbackState(committed, newValidator());
+        try (CsvRecordReader reader = new CsvRecordReader(source.getInputStream())) {
+
+            boolean more = true;
+            while (more) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    try {
+                        if (options.mode() == UploadMode.REPLACE && state.lineNumber == 0) {
+                            // Readers keep seeing the old rows until this single transaction commits
+                            jdbcTemplate.update("DELETE FROM students");
+                        }
+                        boolean remaining = insertRows(reader, options, state);
+                        UploadProgress.Status progress = remaining
+                                ? UploadProgress.Status.RUNNING : UploadProgress.Status.COMPLETE;
+                        jdbcTemplate.update(PROGRESS_SQL, progress.name(), state.rowsCommitted,
+                                Math.max(state.lineNumber, state.committedLines),
+                                Timestamp.valueOf(LocalDateTime.now()), uploadId);
+                        return remaining;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
 
-        batch.append(studentId).append(',');
-        batch.append(firstName).append(',');
-        batch.append(lastName).append(',');
-        batch.append(dob).append(',');
-        batch.append(studentClass).append(',');
-        batch.append(transformedScore).append('\n');
+        return new UploadResult(uploadId, state.inserted, state.updated, state.unchanged, state.duplicates)
+                .withValidation(state.validator.report());
     }
 
-    private int fallbackBatchInsert(MultipartFile file) throws IOException {
-        int inserted = 0;
+    /** Inserts rows until the commit interval is reached; returns false at end of input. */
+    private boolean insertRows(CsvRecordReader reader, UploadOptions options, FallbackState state) throws IOException {
         String sql = """
-            INSERT INTO students (student_id, first_name, last_name, dob, class, score)
-            VALUES (?, ?, ?, ?, ?, ?)
+            INSERT INTO students (student_id, first_name, last_name, dob, class, score, row_hash)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
             ON CONFLICT (student_id) DO UPDATE SET
                 first_name = EXCLUDED.first_name,
                 last_name = EXCLUDED.last_name,
                 dob = EXCLUDED.dob,
                 class = EXCLUDED.class,
-                score = EXCLUDED.score
+                score = EXCLUDED.score,
+                row_hash = EXCLUDED.row_hash
             """;
+        int batchRows = 0;
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-
-            String line;
-            boolean headerSkipped = false;
+        while (reader.next()) {
+            state.lineNumber = reader.recordNumber();
+            if (state.lineNumber == 1) {
+                continue; // header
+            }
+            if (!state.validator.validate(reader)) {
+                continue;
+            }
 
-            while ((line = reader.readLine()) != null) {
-                if (!headerSkipped) {
-                    headerSkipped = true;
+            long studentId = state.validator.studentId();
+            boolean duplicate = !state.seenIds.add(studentId);
+            if (duplicate) {
+                state.duplicates++;
+                if (options.duplicatePolicy() == DuplicatePolicy.REJECT) {
+                    throw new UploadRejectedException("Duplicate studentId " + studentId + " on line " + state.lineNumber);
+                }
+                if (options.duplicatePolicy() == DuplicatePolicy.FIRST_WINS) {
                     continue;
                 }
+            } else if (state.lineNumber <= state.committedLines) {
+                continue; // committed by an earlier run
+            }
+            // Blank names load as NULL, as they do through COPY
+            String firstName = nullIfEmpty(field(reader, 1));
+            String lastName = nullIfEmpty(field(reader, 2));
+            LocalDate dob = LocalDate.ofEpochDay(state.validator.dob());
+            String studentClass = field(reader, 4);
+            int score = state.validator.score() + StudentCopyEncoder.SCORE_INCREMENT;
+            if (state.scratch.data.length < StudentCopyEncoder.maxRowLength(reader)) {
+                state.scratch = new CopyBufferPipe.Chunk(StudentCopyEncoder.maxRowLength(reader));
+            }
+            state.scratch.length = 0;
+            long rowHash = StudentCopyEncoder.appendRow(state.scratch, reader, state.validator.score());
 
-                String[] tokens = line.split(",", -1);
-                if (tokens.length < 6) {
-                    continue;
+            if (options.mode() == UploadMode.DELTA) {
+                state.deltaRows.add(new Object[] {studentId, firstName, lastName, dob, studentClass, score, rowHash});
+                if (state.deltaRows.size() == DELTA_BATCH_ROWS) {
+                    writeDeltaRows(sql, state);
                 }
+                continue;
+            }
 
-                Long studentId = Long.parseLong(tokens[0].trim());
-                String firstName = tokens[1].trim();
-                String lastName = tokens[2].trim();
-                LocalDate dob = LocalDate.parse(tokens[3].trim());
-                String studentClass = tokens[4].trim();
-                int score = Integer.parseInt(tokens[5].trim()) + 5;
+            jdbcTemplate.update(sql, studentId, firstName, lastName, dob, studentClass, score, rowHash);
+            if (!duplicate) {
+                state.inserted++;
+                state.rowsCommitted++;
+            }
+            if (options.commitInterval() > 0 && options.mode() == UploadMode.MERGE
+                    && ++batchRows >= options.commitInterval()) {
+                return true;
+            }
+        }
+        writeDeltaRows(sql, state);
+        return false;
+    }
 
-                jdbcTemplate.update(sql, studentId, firstName, lastName, dob, studentClass, score);
-                inserted++;
+    /**
+     * Compares the buffered delta rows with the stored hashes, read in one query, and writes
+     * the new or changed ones in one batch. Each row is compared as if the rows before it
+     * were already written, so a repeated id counts the same as it would row by row.
+     */
+    private void writeDeltaRows(String sql, FallbackState state) {
+        List<Object[]> rows = state.deltaRows;
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> stored = new HashMap<>();
+        RowCallbackHandler handler = rs -> stored.put(rs.getLong(1), rs.getObject(2, Long.class));
+        jdbcTemplate.query("SELECT student_id, row_hash FROM students WHERE student_id IN ("
+                        + String.join(", ", Collections.nCopies(rows.size(), "?")) + ")",
+                handler, rows.stream().map(row -> row[0]).toArray());
+
+        List<Object[]> changed = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long studentId = (Long) row[0];
+            Long rowHash = (Long) row[6];
+            if (!stored.containsKey(studentId)) {
+                state.inserted++;
+            } else if (Objects.equals(stored.get(studentId), rowHash)) {
+                state.unchanged++;
+                continue;
+            } else {
+                state.updated++;
             }
+            stored.put(studentId, rowHash);
+            changed.add(row);
         }
+        jdbcTemplate.batchUpdate(sql, changed);
+        rows.clear();
+    }
 
-        return inserted;
+    private static String field(CsvRecordReader reader, int field) {
+        return new String(reader.buffer(), reader.start(field), reader.end(field) - reader.start(field),
+                StandardCharsets.UTF_8).trim();
+    }
+
+    private static String nullIfEmpty(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static final class FallbackState {
+        final StudentIdBitmap seenIds = new StudentIdBitmap();
+        final StudentRecordValidator validator;
+        final List<Object[]> deltaRows = new ArrayList<>();
+        CopyBufferPipe.Chunk scratch = new CopyBufferPipe.Chunk(CHUNK_SIZE);
+        final long committedLines;
+        long rowsCommitted;
+        long lineNumber;
+        int inserted;
+        int updated;
+        int unchanged;
+        int duplicates;
+
+        FallbackState(UploadProgress committed, StudentRecordValidator validator) {
+            this.validator = validator;
+            this.committedLines = committed.getLinesCommitted();
+            this.rowsCommitted = committed.getRowsCommitted();
+        }
     }
 }
@@ -0,0 +1,53 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.UploadBatchNotFoundException;
+import com.compulynx.studentdata.exception.UploadConflictException;
+import com.compulynx.studentdata.model.UploadBatch;
+import com.compulynx.studentdata.repository.UploadBatchRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class UploadBatchService {
+
+    private final UploadBatchRepository uploadBatchRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatasetVersion datasetVersion;
+
+    public UploadBatchService(UploadBatchRepository uploadBatchRepository, JdbcTemplate jdbcTemplate,
+                              DatasetVersion datasetVersion) {
+        this.uploadBatchRepository = uploadBatchRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.datasetVersion = datasetVersion;
+    }
+
+    public List<UploadBatch> listBatches() {
+        return uploadBatchRepository.findAllByOrderByBatchIdDesc();
+    }
+
+    /**
+     * Removes a batch from every as-of view by detaching and dropping its partition.
+     * Both are catalog operations, so the cost does not depend on the batch size.
+     */
+    @Transactional
+    public void rollback(long batchId) {
+        UploadBatch batch = uploadBatchRepository.findById(batchId)
+                .orElseThrow(() -> new UploadBatchNotFoundException(batchId));
+        if (batch.getStatus() != UploadBatch.Status.ACTIVE) {
+            throw new UploadConflictException("Upload batch " + batchId + " is " + batch.getStatus());
+        }
+        String partition = partitionName(batchId);
+        jdbcTemplate.execute("ALTER TABLE student_versions DETACH PARTITION " + partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        datasetVersion.changed();
+        batch.setStatus(UploadBatch.Status.ROLLED_BACK);
+        uploadBatchRepository.save(batch);
+    }
+
+    static String partitionName(long batchId) {
+        return "student_versions_" + batchId;
+    }
+}
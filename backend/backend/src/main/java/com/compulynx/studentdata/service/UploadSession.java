@@ -0,0 +1,223 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.ChunkTooLargeException;
+import com.compulynx.studentdata.exception.UploadConflictException;
+import com.compulynx.studentdata.model.UploadOptions;
+import com.compulynx.studentdata.model.UploadResult;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A chunked upload staged on disk. Chunks are appended in order; only fully received
+ * chunks advance {@link #received()}, so a dropped connection costs just the chunk in flight.
+ * Readers from {@link #source()} see the file grow and block until more bytes arrive.
+ */
+public final class UploadSession {
+
+    public enum State { RECEIVING, COMPLETE, ABORTED }
+
+    private static final long TRANSFER_SIZE = 1024 * 1024; // 1MB per transferFrom call
+
+    private final String id;
+    private final Path stagingFile;
+    private final UploadOptions options;
+    private final FileChannel channel;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final Condition changed = stateLock.newCondition();
+
+    private volatile long received;
+    private volatile State state = State.RECEIVING;
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile Future<UploadResult> ingest;
+
+    UploadSession(String id, Path stagingFile, UploadOptions options) throws IOException {
+        this.id = id;
+        this.stagingFile = stagingFile;
+        this.options = options;
+        this.channel = FileChannel.open(stagingFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public long received() {
+        return received;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    long lastActivity() {
+        return lastActivity;
+    }
+
+    UploadOptions options() {
+        return options;
+    }
+
+    Future<UploadResult> ingest() {
+        return ingest;
+    }
+
+    void ingest(Future<UploadResult> ingest) {
+        this.ingest = ingest;
+    }
+
+    /**
+     * Appends a chunk that starts at {@code offset}. A retransmitted chunk that overlaps
+     * bytes already stored is accepted and only its new tail is written.
+     */
+    long append(long offset, InputStream body, long maxChunkSize) throws IOException {
+        if (!writeLock.tryLock()) {
+            throw new UploadConflictException("Another chunk for session " + id + " is still being written");
+        }
+        try {
+            lastActivity = System.currentTimeMillis();
+            if (state != State.RECEIVING) {
+                throw new UploadConflictException("Upload session " + id + " is " + state);
+            }
+            long committed = received;
+            if (offset > committed) {
+                throw new UploadConflictException("Expected offset " + committed + " but got " + offset);
+            }
+            try {
+                body.skipNBytes(committed - offset);
+            } catch (EOFException e) {
+                return committed; // whole chunk was already stored
+            }
+
+            ReadableByteChannel source = Channels.newChannel(body);
+            long position = committed;
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, TRANSFER_SIZE)) > 0) {
+                position += transferred;
+                if (position - offset > maxChunkSize) {
+                    throw new ChunkTooLargeException(maxChunkSize);
+                }
+            }
+
+            stateLock.lock();
+            try {
+                received = position;
+                changed.signalAll();
+            } finally {
+                stateLock.unlock();
+            }
+            lastActivity = System.currentTimeMillis();
+            return position;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void complete(Long expectedSize) {
+        if (!writeLock.tryLock()) {
+            throw new UploadConflictException("A chunk for session " + id + " is still being written");
+        }
+        try {
+            if (state != State.RECEIVING) {
+                throw new UploadConflictException("Upload session " + id + " is " + state);
+            }
+            if (expectedSize != null && expectedSize != received) {
+                throw new UploadConflictException("Expected " + expectedSize + " bytes but received " + received);
+            }
+            transition(State.COMPLETE);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void abort() {
+        transition(State.ABORTED);
+    }
+
+    void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(stagingFile);
+    }
+
+    /** Each stream reads the staged bytes from the start, waiting for chunks that have not arrived yet. */
+    InputStreamSource source() {
+        return StagedInputStream::new;
+    }
+
+    private void transition(State next) {
+        stateLock.lock();
+        try {
+            state = next;
+            changed.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private final class StagedInputStream extends InputStream {
+
+        private final FileChannel reader;
+        private long position;
+
+        StagedInputStream() throws IOException {
+            this.reader = FileChannel.open(stagingFile, StandardOpenOption.READ);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long available = awaitData();
+            if (available == 0) {
+                return -1;
+            }
+            int read = reader.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+            position += read;
+            return read;
+        }
+
+        private long awaitData() throws IOException {
+            stateLock.lock();
+            try {
+                while (position >= received && state == State.RECEIVING) {
+                    changed.await();
+                }
+                if (state == State.ABORTED) {
+                    throw new IOException("Upload session " + id + " was aborted");
+                }
+                return received - position;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for upload chunks");
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.UploadSessionNotFoundException;
+import com.compulynx.studentdata.model.UploadOptions;
+import com.compulynx.studentdata.model.UploadResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Resumable uploads: clients create a session, PUT chunks at increasing offsets and
+ * finally complete it. Ingest starts with the first chunk and consumes the staging
+ * file while later chunks are still arriving.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+    private static final String STAGING_DIRECTORY = "uploads";
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final StudentUploadService studentUploadService;
+    private final FilePathService filePathService;
+    private final AsyncTaskExecutor uploadSessionExecutor;
+    private final AsyncTaskExecutor uploadSessionProducerExecutor;
+
+    @Value("${app.upload.max-chunk-size:67108864}")
+    private long maxChunkSize;
+
+    @Value("${app.upload.session-timeout:PT30M}")
+    private Duration sessionTimeout;
+
+    public UploadSessionService(StudentUploadService studentUploadService, FilePathService filePathService,
+                                @Qualifier("uploadSessionExecutor") AsyncTaskExecutor uploadSessionExecutor,
+                                @Qualifier("uploadSessionProducerExecutor") AsyncTaskExecutor uploadSessionProducerExecutor) {
+        this.studentUploadService = studentUploadService;
+        this.filePathService = filePathService;
+        this.uploadSessionExecutor = uploadSessionExecutor;
+        this.uploadSessionProducerExecutor = uploadSessionProducerExecutor;
+    }
+
+    public UploadSession create(UploadOptions options) throws IOException {
+        Path directory = filePathService.resolveDirectory().resolve(STAGING_DIRECTORY);
+        Files.createDirectories(directory);
+        String id = UUID.randomUUID().toString();
+        UploadSession session = new UploadSession(id, directory.resolve(id + ".part"), options);
+        sessions.put(id, session);
+        return session;
+    }
+
+    public UploadSession get(String id) {
+        UploadSession session = sessions.get(id);
+        if (session == null) {
+            throw new UploadSessionNotFoundException(id);
+        }
+        return session;
+    }
+
+    public long appendChunk(String id, long offset, InputStream body) throws IOException {
+        UploadSession session = get(id);
+        long received = session.append(offset, body, maxChunkSize);
+        startIngest(session);
+        return received;
+    }
+
+    /** Marks the upload complete and waits for the overlapping ingest to finish. */
+    public UploadResult complete(String id, Long expectedSize) throws IOException {
+        UploadSession session = get(id);
+        session.complete(expectedSize);
+        startIngest(session);
+        try {
+            return session.ingest().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Upload interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error ingesting upload session " + id, e.getCause());
+        } finally {
+            discard(session);
+        }
+    }
+
+    public void abort(String id) throws IOException {
+        UploadSession session = get(id);
+        session.abort();
+        discard(session);
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.cleanup-interval:PT1M}")
+    public void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTimeout.toMillis();
+        for (UploadSession session : sessions.values()) {
+            if (session.state() == UploadSession.State.RECEIVING && session.lastActivity() < cutoff) {
+                log.warn("Expiring idle upload session {} after {} bytes", session.id(), session.received());
+                session.abort();
+                try {
+                    discard(session);
+                } catch (IOException e) {
+                    log.warn("Could not remove staging file for upload session {}", session.id(), e);
+                }
+            }
+        }
+    }
+
+    private void startIngest(UploadSession session) {
+        if (session.ingest() != null) {
+            return;
+        }
+        synchronized (session) {
+            if (session.ingest() == null) {
+                session.ingest(uploadSessionExecutor.submit(() -> studentUploadService.upload(
+                        session.id(), session.source(), session.options(), uploadSessionProducerExecutor)));
+            }
+        }
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        sessions.remove(session.id());
+        Future<UploadResult> ingest = session.ingest();
+        if (ingest != null && !ingest.isDone()) {
+            ingest.cancel(true);
+        }
+        session.close();
+    }
+}
@@ -0,0 +1,423 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.StudentRow;
+import com.compulynx.studentdata.repository.StudentRowSink;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.ZipEntry;
+
+/**
+ * Builds an xlsx package from independently written parts. Each part is a {@link StudentRowSink}
+ * that renders its rows as SpreadsheetML straight into a temp file, so parts can be filled
+ * concurrently from separate cursors. {@link #writeTo} then cuts the rows into sheets at the
+ * row limit, deflates the sheets in parallel and streams the zip with the workbook parts
+ * around them.
+ * <p>
+ * Parts added together by {@link #addParts} continue one another: their rows run on across
+ * part boundaries and a new sheet starts only at the row limit, so the sheets depend on the
+ * row count alone, not on how many parts the rows were read in. Rows and cells carry no
+ * references, which leaves their position to their order and lets a part's rows be placed
+ * anywhere in a sheet without rewriting them.
+ * <p>
+ * Sheets come out in part order. Every sheet is named after its part, with " (2)", " (3)"...
+ * appended to repeated names. Different parts may be written from different threads, but
+ * all parts must be added before any of them is written.
+ */
+final class XlsxExportWriter implements Closeable {
+
+    /** Rows per sheet in Excel, header included. */
+    static final int MAX_ROWS = 1_048_576;
+
+    private static final String[] HEADER = {"studentId", "firstName", "lastName", "dob", "class", "score"};
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String RELATIONSHIP_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PACKAGE_RELATIONSHIP_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String STYLES = XML_DECLARATION
+            + "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+            + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/></cellXfs>"
+            + "</styleSheet>";
+
+    private static final byte[] SHEET_START = (XML_DECLARATION
+            + "<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>\n"
+            + headerRow() + "\n").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SHEET_END = "</sheetData></worksheet>".getBytes(StandardCharsets.UTF_8);
+
+    private final int maxRows;
+    private final List<Part> parts = new ArrayList<>();
+
+    XlsxExportWriter() {
+        this(MAX_ROWS);
+    }
+
+    XlsxExportWriter(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    /** Adds a part whose sheets are called {@code name}; parts are laid out in the order they are added. */
+    StudentRowSink addPart(String name) {
+        return addParts(name, 1).get(0);
+    }
+
+    /** Adds {@code count} parts whose rows, in part order, form one run of sheets called {@code name}. */
+    List<StudentRowSink> addParts(String name, int count) {
+        List<StudentRowSink> added = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Part part = new Part(name, i > 0);
+            parts.add(part);
+            added.add(part);
+        }
+        return added;
+    }
+
+    /** Closes the rows of part {@code index}; must be called before {@link #writeTo}. */
+    void completePart(int index) throws IOException {
+        parts.get(index).finish();
+    }
+
+    /**
+     * Writes the workbook to {@code out} as a zip, compressing up to {@code threads} sheets
+     * at a time on {@code executor}. {@code out} is left open.
+     */
+    void writeTo(OutputStream out, Executor executor, int threads) throws IOException {
+        List<Sheet> sheets = layOutSheets();
+
+        // The creator shuts down the executor it is given, so it gets a view of the shared one
+        ParallelScatterZipCreator creator = new ParallelScatterZipCreator(new BoundedExecutorView(executor, threads));
+        addEntry(creator, "[Content_Types].xml", text(contentTypes(sheets.size())));
+        addEntry(creator, "_rels/.rels", text(XML_DECLARATION
+                + "<Relationships xmlns=\"" + PACKAGE_RELATIONSHIP_NS + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIP_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>"));
+        addEntry(creator, "xl/workbook.xml", text(workbook(sheets)));
+        addEntry(creator, "xl/_rels/workbook.xml.rels", text(workbookRelationships(sheets.size())));
+        addEntry(creator, "xl/styles.xml", text(STYLES));
+        for (int i = 0; i < sheets.size(); i++) {
+            Sheet sheet = sheets.get(i);
+            addEntry(creator, "xl/worksheets/sheet" + (i + 1) + ".xml", () -> {
+                try {
+                    return sheet.open();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(CloseShieldOutputStream.wrap(out))) {
+            creator.writeTo(zip);
+            zip.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing sheets");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Could not compress sheets", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Part part : parts) {
+            part.delete();
+        }
+    }
+
+    /**
+     * Cuts the parts' rows into sheets of at most {@code maxRows} rows, header included,
+     * starting a new run of sheets with every part that does not continue the one before.
+     * A sheet takes byte ranges of the part files; where a sheet ends inside a part, the
+     * part is read up to that row to find the offset. With no rows at all the workbook gets
+     * one header-only sheet.
+     */
+    private List<Sheet> layOutSheets() throws IOException {
+        List<Sheet> sheets = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        long rowsPerSheet = maxRows - 1;
+        Sheet current = null;
+        for (Part part : parts) {
+            if (!part.continued) {
+                current = null;
+            }
+            long row = 0;
+            long offset = 0;
+            while (row < part.rows) {
+                if (current == null || current.rows == rowsPerSheet) {
+                    int count = seen.merge(part.name, 1, Integer::sum);
+                    current = new Sheet(count == 1 ? part.name : sheetName(part.name, " (" + count + ")"));
+                    sheets.add(current);
+                }
+                long take = Math.min(part.rows - row, rowsPerSheet - current.rows);
+                long end = row + take == part.rows ? part.length() : part.offsetAfter(offset, take);
+                current.segments.add(new Segment(part.file, offset, end - offset));
+                current.rows += take;
+                row += take;
+                offset = end;
+            }
+        }
+        if (sheets.isEmpty()) {
+            sheets.add(new Sheet("students"));
+        }
+        return sheets;
+    }
+
+    private static void addEntry(ParallelScatterZipCreator creator, String name, InputStreamSupplier content) {
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setMethod(ZipEntry.DEFLATED);
+        creator.addArchiveEntry(entry, content);
+    }
+
+    private static InputStreamSupplier text(String xml) {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        return () -> new ByteArrayInputStream(bytes);
+    }
+
+    private static String contentTypes(int sheets) {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private static String workbook(List<Sheet> sheets) {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(RELATIONSHIP_NS).append("\">")
+                .append("<sheets>");
+        for (int i = 0; i < sheets.size(); i++) {
+            xml.append("<sheet name=\"").append(escapeAttribute(sheets.get(i).name))
+                    .append("\" sheetId=\"").append(i + 1).append("\" r:id=\"rId").append(i + 1).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private static String workbookRelationships(int sheets) {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Relationships xmlns=\"").append(PACKAGE_RELATIONSHIP_NS).append("\">");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(RELATIONSHIP_NS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheets + 1).append("\" Type=\"").append(RELATIONSHIP_NS)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+
+    /** Sheet names are limited to 31 characters and may not contain []:*?/\ . */
+    static String sheetName(String name, String suffix) {
+        String cleaned = name.replaceAll("[\\[\\]:*?/\\\\]", "_");
+        int room = 31 - suffix.length();
+        return (cleaned.length() > room ? cleaned.substring(0, room) : cleaned) + suffix;
+    }
+
+    private static String headerRow() {
+        StringBuilder xml = new StringBuilder("<row>");
+        for (String column : HEADER) {
+            xml.append("<c t=\"inlineStr\"><is><t>").append(column).append("</t></is></c>");
+        }
+        return xml.append("</row>").toString();
+    }
+
+    private static String escapeAttribute(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /** Byte range of a part file holding whole rows. */
+    private record Segment(Path file, long offset, long length) {
+
+        InputStream open() throws IOException {
+            FileChannel channel = FileChannel.open(file).position(offset);
+            return BoundedInputStream.builder()
+                    .setInputStream(Channels.newInputStream(channel))
+                    .setMaxCount(length)
+                    .get();
+        }
+    }
+
+    /** One worksheet: the header row, then the rows of its segments in order. */
+    private static final class Sheet {
+
+        private final String name;
+        private final List<Segment> segments = new ArrayList<>();
+        private long rows;
+
+        Sheet(String name) {
+            this.name = name;
+        }
+
+        InputStream open() throws IOException {
+            List<InputStream> streams = new ArrayList<>();
+            streams.add(new ByteArrayInputStream(SHEET_START));
+            try {
+                for (Segment segment : segments) {
+                    streams.add(segment.open());
+                }
+            } catch (IOException e) {
+                for (InputStream stream : streams) {
+                    stream.close();
+                }
+                throw e;
+            }
+            streams.add(new ByteArrayInputStream(SHEET_END));
+            return new SequenceInputStream(Collections.enumeration(streams));
+        }
+    }
+
+    /** The rows of one part, one per line, in a temp file. */
+    private final class Part implements StudentRowSink {
+
+        private final String name;
+        private final boolean continued;
+        private Path file;
+        private Writer writer;
+        private long rows;
+
+        Part(String name, boolean continued) {
+            this.name = sheetName(name, "");
+            this.continued = continued;
+        }
+
+        @Override
+        public void accept(StudentRow student) throws IOException {
+            if (writer == null) {
+                file = Files.createTempFile("students-export-", ".xml");
+                writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                        BUFFER_SIZE);
+            }
+            rows++;
+            writer.write("<row>");
+            numberCell(student.studentId());
+            textCell(student.firstName());
+            textCell(student.lastName());
+            textCell(student.dob() != null ? student.dob().toString() : "");
+            textCell(student.studentClass());
+            if (student.score() != null) {
+                numberCell(student.score());
+            }
+            writer.write("</row>\n");
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+
+        long length() throws IOException {
+            return file == null ? 0 : Files.size(file);
+        }
+
+        /** Offset just past the next {@code rows} rows from {@code offset}; rows end in the only raw newlines. */
+        long offsetAfter(long offset, long rows) throws IOException {
+            try (FileChannel channel = FileChannel.open(file)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                long position = offset;
+                long remaining = rows;
+                while (channel.read(buffer, position) > 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        position++;
+                        if (buffer.get() == '\n' && --remaining == 0) {
+                            return position;
+                        }
+                    }
+                    buffer.clear();
+                }
+                throw new IOException("Export part ended before row " + rows);
+            }
+        }
+
+        void delete() {
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException ignored) {
+                // temp file, nothing else to do
+            }
+        }
+
+        private void numberCell(long value) throws IOException {
+            writer.write("<c><v>");
+            writer.write(Long.toString(value));
+            writer.write("</v></c>");
+        }
+
+        /** Cells carry no reference, so a missing value still takes its place as an empty cell. */
+        private void textCell(String value) throws IOException {
+            if (value == null) {
+                writer.write("<c/>");
+                return;
+            }
+            writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            escapeText(value);
+            writer.write("</t></is></c>");
+        }
+
+        private void escapeText(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> writer.write("&amp;");
+                    case '<' -> writer.write("&lt;");
+                    case '>' -> writer.write("&gt;");
+                    // Line breaks as references keep one row per line and survive XML's line ending normalization
+                    case '\n' -> writer.write("&#10;");
+                    case '\r' -> writer.write("&#13;");
+                    case '\t' -> writer.write(c);
+                    default -> {
+                        // control characters are not allowed in XML 1.0 at all
+                        if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+                            writer.write(c);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
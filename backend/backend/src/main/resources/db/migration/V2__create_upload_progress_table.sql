@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS upload_progress (
+    upload_id VARCHAR(64) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    rows_committed BIGINT NOT NULL DEFAULT 0,
+    lines_committed BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,2 @@
+-- Content hash of the normalized row, used by delta uploads to skip unchanged students
+ALTER TABLE students ADD COLUMN IF NOT EXISTS row_hash BIGINT;
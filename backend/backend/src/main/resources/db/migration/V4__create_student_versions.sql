@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS upload_batches (
+    batch_id BIGSERIAL PRIMARY KEY,
+    upload_id VARCHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    row_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- One partition per batch (student_versions_<batch_id>), attached once its load commits
+CREATE TABLE IF NOT EXISTS student_versions (
+    batch_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    dob DATE,
+    class VARCHAR(255),
+    score INTEGER,
+    row_hash BIGINT
+) PARTITION BY LIST (batch_id);
@@ -0,0 +1,2 @@
+-- Serves as-of reads' per-student lookups of the newest version; created on every partition
+CREATE INDEX IF NOT EXISTS idx_student_versions_student_batch ON student_versions (student_id, batch_id DESC);
@@ -1,12 +1,30 @@
 package com.compulynx.studentdata;
 
+import com.compulynx.studentdata.exception.UploadRejectedException;
+import com.compulynx.studentdata.model.DuplicatePolicy;
+import com.compulynx.studentdata.model.SheetLayout;
 import com.compulynx.studentdata.model.Student;
+import com.compulynx.studentdata.model.UploadBatch;
+import com.compulynx.studentdata.model.UploadMode;
+import com.compulynx.studentdata.model.UploadOptions;
+import com.compulynx.studentdata.model.UploadProgress;
+import com.compulynx.studentdata.model.UploadResult;
+import com.compulynx.studentdata.repository.StudentBulkReader;
 import com.compulynx.studentdata.repository.StudentRepository;
+import com.compulynx.studentdata.repository.StudentSnapshotScanner;
+import com.compulynx.studentdata.repository.UploadBatchRepository;
+import com.compulynx.studentdata.repository.UploadProgressRepository;
+import com.compulynx.studentdata.service.ExportService;
 import com.compulynx.studentdata.service.StudentUploadService;
+import com.compulynx.studentdata.service.UploadBatchService;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -14,9 +32,12 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,18 +57,41 @@ class PostgresIntegrationTest {
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
         registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
-        registry.add("spring.flyway.enabled", () -> "false");
+        // Flyway creates what JPA does not manage, such as the partitioned student_versions table
+        registry.add("spring.flyway.enabled", () -> "true");
     }
 
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private UploadProgressRepository uploadProgressRepository;
+
     @Autowired
     private StudentUploadService uploadService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UploadBatchService uploadBatchService;
+
+    @Autowired
+    private UploadBatchRepository uploadBatchRepository;
+
+    @Autowired
+    private StudentBulkReader studentBulkReader;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private StudentSnapshotScanner studentSnapshotScanner;
+
     @BeforeEach
     void setUp() {
         studentRepository.deleteAll();
+        uploadProgressRepository.deleteAll();
     }
 
     @Test
@@ -123,6 +167,259 @@ class PostgresIntegrationTest {
         assertTrue(duration < 10000, "Upload of " + recordCount + " records should complete within 10 seconds");
     }
 
+    @Test
+    void shouldKeepLastRowForDuplicateIdsWithCopyCommand() throws Exception {
+        String csvContent = """
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,70
+                2,Jane,Smith,2006-03-20,Class2,75
+                1,Johnny,Doe,2005-06-15,Class3,80
+                1,Jon,Doe,2005-06-15,Class4,85
+                """;
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "duplicates.csv",
+                "text/csv",
+                csvContent.getBytes(StandardCharsets.UTF_8)
+        );
+
+        UploadResult result = uploadService.upload(file, new UploadOptions(DuplicatePolicy.LAST_WINS, 0));
+
+        assertEquals(2, result.inserted());
+        assertEquals(2, result.duplicates());
+        assertEquals(2, studentRepository.count());
+        Student student = studentRepository.findById(1L).orElseThrow();
+        assertEquals("Jon", student.getFirstName());
+        assertEquals(90, student.getScore());
+    }
+
+    @Test
+    void shouldRecordProgressWhenCommittingInChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("studentId,firstName,lastName,dob,class,score\n");
+        for (int i = 1; i <= 10000; i++) {
+            csv.append(i).append(",First,Last,2005-06-15,Class1,60\n");
+        }
+
+        UploadResult result = uploadService.upload(new ByteArrayResource(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                new UploadOptions(DuplicatePolicy.LAST_WINS, 1000));
+
+        assertEquals(10000, result.inserted());
+        assertEquals(10000, studentRepository.count());
+        UploadProgress progress = uploadProgressRepository.findById(result.uploadId()).orElseThrow();
+        assertEquals(UploadProgress.Status.COMPLETE, progress.getStatus());
+        assertEquals(10000, progress.getRowsCommitted());
+        assertEquals(10001, progress.getLinesCommitted());
+    }
+
+    @Test
+    void shouldResumeFailedUploadAfterLastCommittedLine() throws Exception {
+        String csvContent = """
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,70
+                2,Jane,Smith,2006-03-20,Class2,75
+                3,Bob,Wilson,2005-11-10,Class1,80
+                """;
+        // An earlier run committed the first two rows (lines 2-3) before failing
+        studentRepository.save(new Student(1L, "John", "Doe", LocalDate.of(2005, 6, 15), "Class1", 75));
+        studentRepository.save(new Student(2L, "Jane", "Smith", LocalDate.of(2006, 3, 20), "Class2", 80));
+        UploadProgress failed = new UploadProgress("resume-test");
+        failed.setStatus(UploadProgress.Status.FAILED);
+        failed.setRowsCommitted(2);
+        failed.setLinesCommitted(3);
+        uploadProgressRepository.save(failed);
+
+        UploadResult result = uploadService.upload("resume-test",
+                new ByteArrayResource(csvContent.getBytes(StandardCharsets.UTF_8)), new UploadOptions(DuplicatePolicy.LAST_WINS, 1));
+
+        assertEquals(1, result.inserted());
+        assertEquals(3, studentRepository.count());
+        UploadProgress progress = uploadProgressRepository.findById("resume-test").orElseThrow();
+        assertEquals(UploadProgress.Status.COMPLETE, progress.getStatus());
+        assertEquals(3, progress.getRowsCommitted());
+    }
+
+    @Test
+    void shouldReplaceAllStudentsOnFullReload() throws Exception {
+        studentRepository.save(new Student(1L, "Old", "Row", LocalDate.of(2005, 6, 15), "Class1", 50));
+        studentRepository.save(new Student(2L, "Old", "Row", LocalDate.of(2005, 6, 15), "Class1", 50));
+        String csvContent = """
+                studentId,firstName,lastName,dob,class,score
+                2,Jane,Smith,2006-03-20,Class2,75
+                3,Bob,Wilson,2005-11-10,Class1,80
+                3,Bobby,Wilson,2005-11-10,Class1,90
+                """;
+
+        UploadResult result = uploadService.upload(new ByteArrayResource(csvContent.getBytes(StandardCharsets.UTF_8)),
+                new UploadOptions(DuplicatePolicy.LAST_WINS, 0, UploadMode.REPLACE));
+
+        assertEquals(2, result.inserted());
+        assertEquals(2, studentRepository.count());
+        assertFalse(studentRepository.existsById(1L));
+        assertEquals("Jane", studentRepository.findById(2L).orElseThrow().getFirstName());
+        assertEquals("Bobby", studentRepository.findById(3L).orElseThrow().getFirstName());
+
+        // The swapped-in table carries the primary key, so merges keep working
+        uploadService.uploadCsv(new MockMultipartFile("file", "merge.csv", "text/csv",
+                "studentId,firstName,lastName,dob,class,score\n3,Rob,Wilson,2005-11-10,Class1,70\n"
+                        .getBytes(StandardCharsets.UTF_8)));
+        assertEquals("Rob", studentRepository.findById(3L).orElseThrow().getFirstName());
+    }
+
+    @Test
+    void shouldWriteOnlyChangedRowsOnDeltaUpload() throws Exception {
+        uploadService.uploadCsv(new MockMultipartFile("file", "day1.csv", "text/csv", """
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,70
+                2,Jane,Smith,2006-03-20,Class2,75
+                """.getBytes(StandardCharsets.UTF_8)));
+        long unchangedVersion = jdbcTemplate.queryForObject(
+                "SELECT xmin::text::bigint FROM students WHERE student_id = 1", Long.class);
+
+        UploadResult result = uploadService.upload(new ByteArrayResource("""
+                studentId,firstName,lastName,dob,class,score
+                1, John ,Doe,2005-06-15,Class1,70
+                2,Jane,Smith,2006-03-20,Class2,76
+                3,Bob,Wilson,2005-11-10,Class1,80
+                """.getBytes(StandardCharsets.UTF_8)), new UploadOptions(DuplicatePolicy.LAST_WINS, 0, UploadMode.DELTA));
+
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(1, result.unchanged());
+        assertEquals(3, studentRepository.count());
+        assertEquals(81, studentRepository.findById(2L).orElseThrow().getScore());
+        assertEquals(unchangedVersion, jdbcTemplate.queryForObject(
+                "SELECT xmin::text::bigint FROM students WHERE student_id = 1", Long.class));
+    }
+
+    @Test
+    void shouldServeAsOfBatchAndRollBackByDroppingPartition() throws Exception {
+        UploadOptions batchMode = new UploadOptions(DuplicatePolicy.LAST_WINS, 0, UploadMode.BATCH);
+        long first = uploadService.upload(new ByteArrayResource("""
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,70
+                2,Jane,Smith,2006-03-20,Class2,75
+                """.getBytes(StandardCharsets.UTF_8)), batchMode).batchId();
+        long second = uploadService.upload(new ByteArrayResource("""
+                studentId,firstName,lastName,dob,class,score
+                2,Jane,Smith,2006-03-20,Class3,95
+                3,Bob,Wilson,2005-11-10,Class1,80
+                """.getBytes(StandardCharsets.UTF_8)), batchMode).batchId();
+        PageRequest page = PageRequest.of(0, 10);
+
+        var asOfSecond = studentRepository.searchAsOfBatch(second, null, null, page);
+        assertEquals(3, asOfSecond.getTotalElements());
+        assertEquals(100, asOfSecond.getContent().get(1).getScore());
+        assertEquals(2, studentRepository.searchAsOfBatch(first, null, null, page).getTotalElements());
+        assertEquals(1, studentRepository.searchAsOfBatch(second, null, "Class3", page).getTotalElements());
+        assertEquals(0, studentRepository.searchAsOfBatch(second, 2L, "Class2", page).getTotalElements(),
+                "A superseded version should not match");
+        assertEquals(0, studentRepository.count(), "Batches should not touch the live table");
+
+        uploadBatchService.rollback(second);
+
+        var rolledBack = studentRepository.searchAsOfBatch(second, null, null, page);
+        assertEquals(2, rolledBack.getTotalElements());
+        assertEquals(80, rolledBack.getContent().get(1).getScore());
+        assertEquals(UploadBatch.Status.ROLLED_BACK, uploadBatchRepository.findById(second).orElseThrow().getStatus());
+    }
+
+    @Test
+    void shouldRejectDuplicateIdsInBatchMode() {
+        ByteArrayResource csv = new ByteArrayResource("""
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,70
+                1,Jon,Doe,2005-06-15,Class1,70
+                """.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(UploadRejectedException.class, () -> uploadService.upload(csv,
+                new UploadOptions(DuplicatePolicy.REJECT, 0, UploadMode.BATCH)));
+    }
+
+    @Test
+    void shouldExportFilteredCsvThroughCopy() throws Exception {
+        studentRepository.save(new Student(1L, "John", "Doe, Jr.", LocalDate.of(2005, 6, 15), "Class1", 75));
+        studentRepository.save(new Student(2L, "Jane", "O'Hara", LocalDate.of(2006, 3, 20), "Class2", 80));
+        studentRepository.save(new Student(3L, "Bob", "Wilson", LocalDate.of(2005, 11, 10), "Class1", 85));
+
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        ByteArrayOutputStream class1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream injected = new ByteArrayOutputStream();
+        assertTrue(studentBulkReader.copyCsv(null, null, all));
+        assertTrue(studentBulkReader.copyCsv(null, "Class1", class1));
+        assertTrue(studentBulkReader.copyCsv(null, "Class1' OR '1'='1", injected));
+
+        assertEquals("""
+                studentId,firstName,lastName,dob,class,score
+                1,John,"Doe, Jr.",2005-06-15,Class1,75
+                2,Jane,O'Hara,2006-03-20,Class2,80
+                3,Bob,Wilson,2005-11-10,Class1,85
+                """, all.toString(StandardCharsets.UTF_8));
+        assertEquals("""
+                studentId,firstName,lastName,dob,class,score
+                1,John,"Doe, Jr.",2005-06-15,Class1,75
+                3,Bob,Wilson,2005-11-10,Class1,85
+                """, class1.toString(StandardCharsets.UTF_8));
+        assertEquals("studentId,firstName,lastName,dob,class,score\n", injected.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldExportSameCsvWithParallelSnapshotWorkers() throws Exception {
+        StringBuilder csv = new StringBuilder("studentId,firstName,lastName,dob,class,score\n");
+        for (int i = 1; i <= 10000; i++) {
+            csv.append(i).append(",First").append(i).append(",Last").append(i).append(",2005-06-15,Class")
+                    .append(i % 5 + 1).append(",").append(i % 90).append("\n");
+        }
+        uploadService.uploadCsv(new MockMultipartFile("file", "students.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        ByteArrayOutputStream filtered = new ByteArrayOutputStream();
+        exportService.exportCsv(null, null, 1, serial);
+        exportService.exportCsv(null, null, 4, parallel);
+        exportService.exportCsv(null, "Class3", 3, filtered);
+
+        assertEquals(10001, serial.toString(StandardCharsets.UTF_8).lines().count());
+        assertEquals(serial.toString(StandardCharsets.UTF_8), parallel.toString(StandardCharsets.UTF_8));
+        assertEquals(2001, filtered.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void shouldGiveParallelSnapshotWorkersEqualShareOfSkewedIds() throws Exception {
+        // Most ids sit at the bottom of a wide span, so even id steps would leave one part with nearly all rows
+        for (long id = 1; id <= 1000; id++) {
+            jdbcTemplate.update("INSERT INTO students (student_id, first_name, last_name, dob, class, score) "
+                    + "VALUES (?, 'First', 'Last', DATE '2005-06-15', 'Class1', 70)", id < 990 ? id : id * 1_000_000);
+        }
+        AtomicIntegerArray rows = new AtomicIntegerArray(4);
+
+        studentSnapshotScanner.scan(4, null, null, part -> row -> rows.incrementAndGet(part), part -> { });
+
+        for (int part = 0; part < 4; part++) {
+            assertEquals(250, rows.get(part));
+        }
+    }
+
+    @Test
+    void shouldExportOneSheetPerClassFromParallelSnapshotWorkers() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            studentRepository.save(new Student((long) i, "First" + i, "Last" + i, LocalDate.of(2005, 6, 15),
+                    "Class" + (i % 5 + 1), i % 90));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportExcel(SheetLayout.BY_CLASS, 3, out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(5, workbook.getNumberOfSheets());
+            for (int i = 0; i < 5; i++) {
+                assertEquals("Class" + (i + 1), workbook.getSheetName(i));
+                assertEquals(20, workbook.getSheetAt(i).getLastRowNum());
+            }
+        }
+    }
+
     @Test
     void shouldSearchStudentsWithFilters() {
         studentRepository.save(new Student(1L, "John", "Doe", LocalDate.of(2005, 6, 15), "Class1", 75));
@@ -1,20 +1,30 @@
 package com.compulynx.studentdata.controller;
 
+import com.jayway.jsonpath.JsonPath;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -97,6 +107,47 @@ class DataControllerIntegrationTest {
                 .andExpect(status().is5xxServerError());
     }
 
+    @Test
+    void download_shouldServeGeneratedFileById() throws Exception {
+        String fileId = JsonPath.read(mockMvc.perform(post("/api/generate").param("count", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fileId", endsWith(".xlsx")))
+                .andReturn().getResponse().getContentAsString(), "$.fileId");
+
+        MockHttpServletResponse download = download(get("/api/files/{fileId}", fileId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString(fileId)))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn().getResponse();
+        byte[] content = download.getContentAsByteArray();
+        assertEquals(content.length, download.getContentLength());
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(content))) {
+            assertEquals(11, workbook.getSheetAt(0).getPhysicalNumberOfRows());
+        }
+
+        download(get("/api/files/{fileId}", fileId).header(HttpHeaders.RANGE, "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOf(content, 4)));
+        mockMvc.perform(get("/api/files/{fileId}", fileId)
+                        .header(HttpHeaders.IF_NONE_MATCH, download.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void download_shouldStayInsideOutputDirectory() throws Exception {
+        mockMvc.perform(get("/api/files/{fileId}", ".."))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/files/{fileId}", "missing.xlsx"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions download(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult download = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(download));
+    }
+
     private byte[] createTestExcel(int rowCount) throws Exception {
         try (SXSSFWorkbook workbook = new SXSSFWorkbook();
              ByteArrayOutputStream out = new ByteArrayOutputStream()) {
@@ -0,0 +1,102 @@
+package com.compulynx.studentdata.controller;
+
+import com.compulynx.studentdata.model.Student;
+import com.compulynx.studentdata.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @BeforeEach
+    void setUp() {
+        studentRepository.deleteAll();
+        studentRepository.save(new Student(1L, "John", "Doe", LocalDate.of(2005, 6, 15), "Class1", 75));
+    }
+
+    @Test
+    void exportCsv_shouldServeRepeatedRequestsFromCache() throws Exception {
+        MvcResult first = export(get("/api/students/export/csv"));
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        // A cached export is served with a known length and can be resumed
+        MvcResult second = export(get("/api/students/export/csv"));
+        assertEquals(etag, second.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        assertEquals(second.getResponse().getContentAsByteArray().length, second.getResponse().getContentLength());
+
+        MvcResult range = mockMvc.perform(get("/api/students/export/csv").header(HttpHeaders.RANGE, "bytes=0-8"))
+                .andReturn();
+        range = mockMvc.perform(asyncDispatch(range)).andExpect(status().isPartialContent()).andReturn();
+        assertEquals("studentId", range.getResponse().getContentAsString());
+
+        mockMvc.perform(get("/api/students/export/csv").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void exportCsv_shouldRecomputeAfterDatasetChanges() throws Exception {
+        String etag = export(get("/api/students/export/csv")).getResponse().getHeader(HttpHeaders.ETAG);
+
+        studentRepository.save(new Student(2L, "Jane", "Smith", LocalDate.of(2006, 3, 20), "Class2", 80));
+        MvcResult changed = export(get("/api/students/export/csv").header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(changed.getResponse().getContentAsString().contains("Jane"));
+    }
+
+    @Test
+    void exportCsv_shouldRecomputeAfterStudentsAreDeleted() throws Exception {
+        String etag = export(get("/api/students/export/csv")).getResponse().getHeader(HttpHeaders.ETAG);
+
+        studentRepository.deleteAll();
+        MvcResult changed = export(get("/api/students/export/csv").header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertFalse(changed.getResponse().getContentAsString().contains("John"));
+    }
+
+    @Test
+    void exportCsv_shouldCacheFilteredExportsSeparately() throws Exception {
+        studentRepository.save(new Student(2L, "Jane", "Smith", LocalDate.of(2006, 3, 20), "Class2", 80));
+
+        String all = export(get("/api/students/export/csv")).getResponse().getContentAsString();
+        String filtered = export(get("/api/students/export/csv").param("class", "Class2")).getResponse().getContentAsString();
+
+        assertTrue(all.contains("John"));
+        assertFalse(filtered.contains("John"));
+    }
+
+    private MvcResult export(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult export = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+}
@@ -0,0 +1,112 @@
+package com.compulynx.studentdata.controller;
+
+import com.compulynx.studentdata.model.Student;
+import com.compulynx.studentdata.repository.StudentRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportJobControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @BeforeEach
+    void setUp() {
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    void exportJob_shouldRunInBackgroundAndServeArtifactWithRanges() throws Exception {
+        studentRepository.saveAll(createTestStudents(3));
+
+        String jobId = JsonPath.read(mockMvc.perform(post("/api/students/export/jobs").param("format", "CSV"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.format", is("CSV")))
+                .andReturn().getResponse().getContentAsString(), "$.jobId");
+        awaitState(jobId, "DONE");
+
+        String csv = download(get("/api/students/export/jobs/{jobId}/download", jobId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + jobId + "\""))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("students.csv")))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(4, csv.lines().count());
+
+        // A resumed download picks up where the first one stopped
+        download(get("/api/students/export/jobs/{jobId}/download", jobId)
+                        .header(HttpHeaders.RANGE, "bytes=10-")
+                        .header(HttpHeaders.IF_RANGE, "\"" + jobId + "\""))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string(csv.substring(10)));
+    }
+
+    @Test
+    void exportJob_shouldAnswerNotFoundForUnknownJobs() throws Exception {
+        mockMvc.perform(get("/api/students/export/jobs/{jobId}", "missing"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/students/export/jobs/{jobId}/download", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions download(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult download = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(download));
+    }
+
+    private void awaitState(String jobId, String state) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/api/students/export/jobs/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            String current = JsonPath.read(result.getResponse().getContentAsString(), "$.state");
+            if (current.equals(state) || System.currentTimeMillis() > deadline) {
+                assertEquals(state, current);
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private List<Student> createTestStudents(int count) {
+        List<Student> students = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            students.add(new Student(
+                    (long) i,
+                    "First" + i,
+                    "Last" + i,
+                    LocalDate.of(2005, 6, 15),
+                    "Class" + ((i % 5) + 1),
+                    70 + (i % 20)
+            ));
+        }
+        return students;
+    }
+}
@@ -0,0 +1,185 @@
+package com.compulynx.studentdata.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileDownloadResponderTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path directory;
+
+    private final FileDownloadResponder responder = new FileDownloadResponder();
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.writeString(directory.resolve("students.csv"), "0123456789");
+    }
+
+    @Test
+    void respond_shouldSendWholeFileWithLengthAndEtag() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = respond(new HttpHeaders());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("0123456789", body(response));
+    }
+
+    @Test
+    void respond_shouldSendRequestedRange() throws IOException {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=2-5");
+
+        ResponseEntity<StreamingResponseBody> response = respond(request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 2-5/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getHeaders().getContentLength());
+        assertEquals("2345", body(response));
+
+        request.set(HttpHeaders.RANGE, "bytes=-3");
+        assertEquals("789", body(respond(request)));
+    }
+
+    @Test
+    void respond_shouldRejectRangeBeyondEndOfFile() throws IOException {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=10-");
+
+        ResponseEntity<StreamingResponseBody> response = respond(request);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void respond_shouldSendWholeFileWhenIfRangeNoLongerMatches() throws IOException {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=2-5");
+        request.set(HttpHeaders.IF_RANGE, "\"v0\"");
+
+        ResponseEntity<StreamingResponseBody> response = respond(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("0123456789", body(response));
+    }
+
+    @Test
+    void respond_shouldAnswerNotModifiedForMatchingEtag() throws IOException {
+        HttpHeaders request = new HttpHeaders();
+        request.setIfNoneMatch("W/" + ETAG);
+
+        ResponseEntity<StreamingResponseBody> response = respond(request);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void respond_shouldSendAndCloseAnOpenChannelEvenAfterTheFileIsDeleted() throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        ResponseEntity<StreamingResponseBody> response =
+                responder.respond(channel, ETAG, "students.csv", MediaType.TEXT_PLAIN, new HttpHeaders());
+        Files.delete(file);
+
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertEquals("0123456789", body(response));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void respond_shouldCloseAnOpenChannelWhenThereIsNoBody() throws IOException {
+        HttpHeaders request = new HttpHeaders();
+        request.setIfNoneMatch(ETAG);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        responder.respond(channel, ETAG, "students.csv", MediaType.TEXT_PLAIN, request);
+
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void respond_shouldHandWholeFileToSendfileWhenSupported() throws IOException {
+        MockHttpServletRequest request = servletRequest(new HttpHeaders());
+        request.setAttribute(FileDownloadResponder.SENDFILE_SUPPORTED, true);
+
+        ResponseEntity<StreamingResponseBody> response =
+                responder.respond(file, ETAG, "students.csv", MediaType.TEXT_PLAIN, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertNull(response.getBody());
+        assertEquals(file.toRealPath().toString(), request.getAttribute(FileDownloadResponder.SENDFILE_FILENAME));
+        assertEquals(0L, request.getAttribute(FileDownloadResponder.SENDFILE_START));
+        assertEquals(10L, request.getAttribute(FileDownloadResponder.SENDFILE_END));
+    }
+
+    @Test
+    void respond_shouldHandRequestedRangeToSendfileWhenSupported() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletRequest request = servletRequest(headers);
+        request.setAttribute(FileDownloadResponder.SENDFILE_SUPPORTED, true);
+
+        ResponseEntity<StreamingResponseBody> response =
+                responder.respond(file, ETAG, "students.csv", MediaType.TEXT_PLAIN, request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 2-5/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getHeaders().getContentLength());
+        assertNull(response.getBody());
+        assertEquals(2L, request.getAttribute(FileDownloadResponder.SENDFILE_START));
+        assertEquals(6L, request.getAttribute(FileDownloadResponder.SENDFILE_END));
+    }
+
+    @Test
+    void respond_shouldNotUseSendfileForAnUnsatisfiableRange() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=10-");
+        MockHttpServletRequest request = servletRequest(headers);
+        request.setAttribute(FileDownloadResponder.SENDFILE_SUPPORTED, true);
+
+        ResponseEntity<StreamingResponseBody> response =
+                responder.respond(file, ETAG, "students.csv", MediaType.TEXT_PLAIN, request);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertNull(request.getAttribute(FileDownloadResponder.SENDFILE_FILENAME));
+    }
+
+    private ResponseEntity<StreamingResponseBody> respond(HttpHeaders request) throws IOException {
+        return responder.respond(file, ETAG, "students.csv", MediaType.TEXT_PLAIN, servletRequest(request));
+    }
+
+    private static MockHttpServletRequest servletRequest(HttpHeaders headers) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/students.csv");
+        headers.forEach((name, values) -> values.forEach(value -> request.addHeader(name, value)));
+        return request;
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -2,20 +2,40 @@ package com.compulynx.studentdata.controller;
 
 import com.compulynx.studentdata.model.Student;
 import com.compulynx.studentdata.repository.StudentRepository;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -78,7 +98,8 @@ class StudentControllerIntegrationTest {
                         .param("studentId", "5"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content", hasSize(1)))
-                .andExpect(jsonPath("$.content[0].studentId", is(5)));
+                .andExpect(jsonPath("$.content[0].studentId", is(5)))
+                .andExpect(jsonPath("$.content[0].rowHash").doesNotExist());
     }
 
     @Test
@@ -108,21 +129,173 @@ class StudentControllerIntegrationTest {
         List<Student> students = createTestStudents(5);
         studentRepository.saveAll(students);
 
-        mockMvc.perform(get("/api/students/export/excel"))
+        MvcResult export = mockMvc.perform(get("/api/students/export/excel"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(export))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", containsString("students.xlsx")))
                 .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM));
     }
 
+    @Test
+    void exportExcel_shouldWriteOneSheetPerClass() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+
+        MvcResult export = mockMvc.perform(get("/api/students/export/excel")
+                        .param("sheets", "BY_CLASS")
+                        .param("workers", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(body))) {
+            assertEquals(5, workbook.getNumberOfSheets());
+            for (int i = 0; i < 5; i++) {
+                Sheet sheet = workbook.getSheetAt(i);
+                assertEquals("Class" + (i + 1), sheet.getSheetName());
+                assertEquals(2, sheet.getLastRowNum());
+                assertEquals("studentId", sheet.getRow(0).getCell(0).getStringCellValue());
+                assertEquals("Class" + (i + 1), sheet.getRow(1).getCell(4).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void exportExcel_shouldPutStudentsWithoutClassOnUnassignedSheet() throws Exception {
+        List<Student> students = createTestStudents(5);
+        students.add(new Student(6L, "First6", "Last6", LocalDate.of(2005, 6, 15), null, 80));
+        studentRepository.saveAll(students);
+
+        MvcResult export = mockMvc.perform(get("/api/students/export/excel")
+                        .param("sheets", "BY_CLASS"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(body))) {
+            assertEquals(6, workbook.getNumberOfSheets());
+            Sheet unassigned = workbook.getSheetAt(5);
+            assertEquals("Unassigned", unassigned.getSheetName());
+            assertEquals(1, unassigned.getLastRowNum());
+            assertEquals(6, unassigned.getRow(1).getCell(0).getNumericCellValue());
+        }
+    }
+
     @Test
     void exportCsv_shouldReturnCsvFile() throws Exception {
         List<Student> students = createTestStudents(5);
         studentRepository.saveAll(students);
 
-        mockMvc.perform(get("/api/students/export/csv"))
+        MvcResult export = mockMvc.perform(get("/api/students/export/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(export))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", containsString("students.csv")))
-                .andExpect(content().contentType(MediaType.TEXT_PLAIN));
+                .andExpect(content().contentType(MediaType.TEXT_PLAIN))
+                .andExpect(content().string(startsWith("studentId,firstName,lastName,dob,class,score\n1,First1,Last1,2005-06-15,Class2,71\n")))
+                .andExpect(content().string(endsWith("5,First5,Last5,2005-06-15,Class1,75\n")));
+    }
+
+    @Test
+    void exportCsv_shouldApplyListFilters() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+
+        MvcResult export = mockMvc.perform(get("/api/students/export/csv").param("class", "Class2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().string("studentId,firstName,lastName,dob,class,score\n"
+                        + "1,First1,Last1,2005-06-15,Class2,71\n"
+                        + "6,First6,Last6,2005-06-15,Class2,76\n"));
+    }
+
+    @Test
+    void exportCsv_withWorkersShouldMatchSerialExport() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+
+        String serial = exportCsv(get("/api/students/export/csv"));
+        String parallel = exportCsv(get("/api/students/export/csv").param("workers", "3"));
+
+        assertEquals(11, serial.lines().count());
+        assertEquals(serial, parallel);
+    }
+
+    @Test
+    void exportCsv_shouldCapWorkersAtExportThreads() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+
+        String serial = exportCsv(get("/api/students/export/csv"));
+        String parallel = exportCsv(get("/api/students/export/csv").param("workers", "500"));
+
+        assertEquals(serial, parallel);
+    }
+
+    @Test
+    void exportCsv_shouldCompressForClientsThatAcceptIt() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+        String csv = exportCsv(get("/api/students/export/csv"));
+
+        MvcResult export = mockMvc.perform(get("/api/students/export/csv")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] gzipped = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals(csv, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportCsvGzip_shouldReturnGzippedCsvFile() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+        String csv = exportCsv(get("/api/students/export/csv").param("class", "Class2"));
+
+        MvcResult export = mockMvc.perform(get("/api/students/export/csv.gz").param("class", "Class2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] gzipped = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("students.csv.gz")))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals(csv, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportArrow_shouldStreamArrowIpcBatches() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+
+        MvcResult export = mockMvc.perform(get("/api/students/export/arrow"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] stream = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("students.arrows")))
+                .andExpect(content().contentType("application/vnd.apache.arrow.stream"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Continuation marker first, end-of-stream marker last
+        assertArrayEquals(new byte[]{-1, -1, -1, -1}, Arrays.copyOf(stream, 4));
+        assertArrayEquals(new byte[]{-1, -1, -1, -1, 0, 0, 0, 0}, Arrays.copyOfRange(stream, stream.length - 8, stream.length));
+        assertTrue(new String(stream, StandardCharsets.UTF_8).contains("First10"));
     }
 
     @Test
@@ -130,12 +303,121 @@ class StudentControllerIntegrationTest {
         List<Student> students = createTestStudents(5);
         studentRepository.saveAll(students);
 
-        mockMvc.perform(get("/api/students/export/pdf"))
+        MvcResult export = mockMvc.perform(get("/api/students/export/pdf"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(export))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", containsString("students.pdf")))
                 .andExpect(content().contentType(MediaType.APPLICATION_PDF));
     }
 
+    @Test
+    void exportPdf_shouldListEveryStudentAcrossPages() throws Exception {
+        studentRepository.saveAll(createTestStudents(120));
+
+        try (PDDocument document = PDDocument.load(exportBytes(get("/api/students/export/pdf")))) {
+            assertEquals(3, document.getNumberOfPages());
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("1 | First1 Last1 | 2005-06-15 | Class2 | 71"));
+            assertTrue(text.contains("120 | First120 Last120 | 2005-06-15 | Class1 | 70"));
+            assertTrue(text.contains("Page 3"));
+        }
+    }
+
+    @Test
+    void exportPdf_shouldRenderSamePagesWithParallelWorkers() throws Exception {
+        studentRepository.saveAll(createTestStudents(300));
+
+        try (PDDocument serial = PDDocument.load(exportBytes(get("/api/students/export/pdf")));
+             PDDocument parallel = PDDocument.load(exportBytes(get("/api/students/export/pdf").param("workers", "3")))) {
+            assertEquals(7, parallel.getNumberOfPages());
+            PDFTextStripper stripper = new PDFTextStripper();
+            assertEquals(stripper.getText(serial), stripper.getText(parallel));
+        }
+    }
+
+    @Test
+    void exportBundle_shouldZipEveryFormatFromOneScan() throws Exception {
+        studentRepository.saveAll(createTestStudents(1100));
+        String csv = exportCsv(get("/api/students/export/csv"));
+
+        Map<String, byte[]> entries = unzip(exportBytes(get("/api/students/export/bundle")));
+
+        assertEquals(List.of("students.csv", "students.xlsx", "students.pdf"), new ArrayList<>(entries.keySet()));
+        assertEquals(csv, new String(entries.get("students.csv"), StandardCharsets.UTF_8));
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(entries.get("students.xlsx")))) {
+            assertEquals(1101, workbook.getSheetAt(0).getPhysicalNumberOfRows());
+        }
+        try (PDDocument document = PDDocument.load(entries.get("students.pdf"))) {
+            assertEquals(23, document.getNumberOfPages());
+        }
+
+        Map<String, byte[]> gzipped = unzip(exportBytes(get("/api/students/export/bundle").param("gzip", "true")));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.get("students.csv.gz")))) {
+            assertEquals(csv, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void summary_shouldReturnStatisticsPerClass() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+
+        mockMvc.perform(get("/api/students/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.classes", hasSize(5)))
+                .andExpect(jsonPath("$.classes[0].studentClass", is("Class1")))
+                .andExpect(jsonPath("$.classes[0].students", is(2)))
+                .andExpect(jsonPath("$.overall.students", is(10)))
+                .andExpect(jsonPath("$.overall.dobYears.2005", is(10)));
+    }
+
+    @Test
+    void exportSummary_shouldWritePdfAndExcelReports() throws Exception {
+        studentRepository.saveAll(createTestStudents(10));
+
+        try (PDDocument document = PDDocument.load(exportBytes(get("/api/students/export/summary/pdf")))) {
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("Class1: 2 students, 2 scored"));
+            assertTrue(text.contains("All classes: 10 students, 10 scored"));
+        }
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(
+                exportBytes(get("/api/students/export/summary/excel"))))) {
+            assertEquals("Summary", workbook.getSheetName(0));
+            assertEquals("All classes", workbook.getSheetAt(0).getRow(6).getCell(0).getStringCellValue());
+            assertEquals(10, workbook.getSheet("Birth years").getRow(1).getCell(6).getNumericCellValue());
+        }
+    }
+
+    private byte[] exportBytes(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult export = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private String exportCsv(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult export = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
     private List<Student> createTestStudents(int count) {
         List<Student> students = new ArrayList<>();
         for (int i = 1; i <= count; i++) {
@@ -35,6 +35,24 @@ class UploadControllerIntegrationTest {
         studentRepository.deleteAll();
     }
 
+    @Test
+    void uploadManagedFile_shouldRejectPathOutsideOutputDirectory() throws Exception {
+        mockMvc.perform(post("/api/upload/files").param("file", "../../../../etc/passwd"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void uploadManagedFile_shouldReturn404ForMissingFile() throws Exception {
+        mockMvc.perform(post("/api/upload/files").param("file", "students-processed-missing.csv"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rollbackBatch_shouldReturn404ForUnknownBatch() throws Exception {
+        mockMvc.perform(delete("/api/upload/batches/999"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void uploadCsv_shouldInsertStudentsToDatabase() throws Exception {
         String csvContent = """
@@ -131,10 +149,9 @@ class UploadControllerIntegrationTest {
     }
 
     @Test
-    void uploadCsv_shouldSkipInvalidRows() throws Exception {
+    void uploadCsv_shouldRejectInvalidRows() throws Exception {
         String csvContent = """
                 studentId,firstName,lastName,dob,class,score
-                1,John,Doe,2005-06-15,Class1,70
                 invalid,row
                 3,Bob,Wilson,2005-11-10,Class1,80
                 """;
@@ -148,8 +165,7 @@ class UploadControllerIntegrationTest {
 
         mockMvc.perform(multipart("/api/upload")
                         .file(file))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.inserted", is(2)));
+                .andExpect(status().isUnprocessableEntity());
     }
 
     @Test
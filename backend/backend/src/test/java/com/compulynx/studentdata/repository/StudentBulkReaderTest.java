@@ -0,0 +1,80 @@
+package com.compulynx.studentdata.repository;
+
+import com.compulynx.studentdata.model.Student;
+import com.compulynx.studentdata.model.StudentRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(StudentBulkReader.class)
+class StudentBulkReaderTest {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private StudentBulkReader studentBulkReader;
+
+    @BeforeEach
+    void setUp() {
+        studentRepository.deleteAll();
+        List<Student> students = new ArrayList<>();
+        for (long i = 10; i >= 1; i--) {
+            students.add(new Student(i, "First" + i, "Last" + i, LocalDate.of(2005, 6, 15),
+                    "Class" + ((i % 5) + 1), 70 + (int) i));
+        }
+        studentRepository.saveAllAndFlush(students);
+    }
+
+    @Test
+    void scan_shouldReturnRowsInStudentIdOrder() throws IOException {
+        List<StudentRow> rows = new ArrayList<>();
+
+        studentBulkReader.scan(null, null, rows::add);
+
+        assertEquals(10, rows.size());
+        assertEquals(new StudentRow(1, "First1", "Last1", LocalDate.of(2005, 6, 15), "Class2", 71), rows.get(0));
+        assertEquals(10, rows.get(9).studentId());
+    }
+
+    @Test
+    void scan_shouldApplyFilters() throws IOException {
+        List<Long> ids = new ArrayList<>();
+
+        studentBulkReader.scan(null, "Class2", row -> ids.add(row.studentId()));
+
+        assertEquals(List.of(1L, 6L), ids);
+    }
+
+    @Test
+    void scanInChunks_shouldReadEveryRowOnceAcrossChunks() throws IOException {
+        List<Long> ids = new ArrayList<>();
+
+        studentBulkReader.scanInChunks(null, null, 3, row -> ids.add(row.studentId()));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids);
+    }
+
+    @Test
+    void scan_shouldPropagateSinkFailures() {
+        IOException failure = new IOException("client went away");
+
+        IOException thrown = assertThrows(IOException.class, () -> studentBulkReader.scan(null, null, row -> {
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+    }
+}
@@ -0,0 +1,207 @@
+package com.compulynx.studentdata.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the scanner against a mocked PostgreSQL connection pool, so the coordination of its
+ * connections and workers can be checked without a database.
+ */
+class StudentSnapshotScannerTest {
+
+    private static final int THREADS = 2;
+    private static final int POOL_SIZE = 4;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private Long[] cuts = {50L};
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(THREADS);
+        executor.setMaxPoolSize(THREADS);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void scan_shouldWaitForCancelledWorkersBeforeFailing() throws Exception {
+        CountDownLatch secondPartReading = new CountDownLatch(1);
+        AtomicBoolean secondPartEnded = new AtomicBoolean();
+        StudentSnapshotScanner scanner = scanner(sql -> {
+            if (sql.contains("BETWEEN 1 AND 50")) {
+                secondPartReading.await(5, TimeUnit.SECONDS);
+                throw new SQLException("Part 0 failed");
+            }
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenAnswer(invocation -> {
+                secondPartReading.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    // A driver finishing its current round trip before it notices
+                    Thread.sleep(200);
+                    secondPartEnded.set(true);
+                }
+                return false;
+            });
+            return rs;
+        });
+
+        IOException e = assertThrows(IOException.class,
+                () -> scanner.scan(2, null, null, part -> row -> { }, part -> { }));
+
+        assertEquals("Part 0 failed", e.getCause().getMessage());
+        assertTrue(secondPartEnded.get());
+        assertEquals(0, openConnections.get());
+    }
+
+    @Test
+    void scan_shouldCutPartsAtIdPercentiles() throws Exception {
+        List<String> queried = Collections.synchronizedList(new ArrayList<>());
+        cuts = new Long[] {3L, 3L, 90L};
+        StudentSnapshotScanner scanner = scanner(sql -> {
+            queried.add(sql);
+            return mock(ResultSet.class);
+        });
+        List<Integer> completed = new ArrayList<>();
+
+        scanner.scan(4, null, null, part -> row -> { }, completed::add);
+
+        assertEquals(List.of(0, 1, 2, 3), completed);
+        assertEquals(3, queried.size());
+        assertTrue(queried.stream().anyMatch(sql -> sql.contains("student_id BETWEEN 1 AND 3")));
+        assertTrue(queried.stream().anyMatch(sql -> sql.contains("student_id BETWEEN 4 AND 90")));
+        assertTrue(queried.stream().anyMatch(sql -> sql.contains("student_id BETWEEN 91 AND 100")));
+    }
+
+    @Test
+    void scan_shouldRunMoreConcurrentScansThanThePoolHoldsOneSlotAtATime() throws Exception {
+        StudentSnapshotScanner scanner = scanner(sql -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenAnswer(invocation -> {
+                Thread.sleep(20);
+                return false;
+            });
+            return rs;
+        });
+        ExecutorService exports = Executors.newFixedThreadPool(POOL_SIZE + 2);
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int export = 0; export < POOL_SIZE + 2; export++) {
+                results.add(exports.submit(() -> {
+                    List<Integer> completed = new ArrayList<>();
+                    scanner.scan(2, null, null, part -> row -> { }, completed::add);
+                    return completed;
+                }));
+            }
+
+            // Unbounded, six coordinators would hold every connection and starve their workers
+            for (Future<List<Integer>> result : results) {
+                assertEquals(List.of(0, 1), result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            exports.shutdownNow();
+        }
+        assertEquals(0, openConnections.get());
+    }
+
+    @FunctionalInterface
+    private interface Queries {
+
+        ResultSet execute(String sql) throws Exception;
+    }
+
+    /**
+     * A scanner whose coordinator sees ids 1 to 100 with percentiles at {@link #cuts} and whose
+     * workers' queries are answered by {@code worker}. Like a pool that has timed out, the data
+     * source fails once {@link #POOL_SIZE} connections are open.
+     */
+    private StudentSnapshotScanner scanner(Queries worker) throws SQLException {
+        Queries queries = sql -> {
+            if (sql.contains("pg_export_snapshot()")) {
+                return snapshotRow();
+            }
+            return sql.contains("percentile_disc") ? percentiles() : worker.execute(sql);
+        };
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            if (openConnections.incrementAndGet() > POOL_SIZE) {
+                openConnections.decrementAndGet();
+                throw new SQLTransientConnectionException("Connection is not available");
+            }
+            return connection(queries);
+        });
+        return new StudentSnapshotScanner(dataSource, mock(StudentBulkReader.class), executor, 100, THREADS,
+                POOL_SIZE);
+    }
+
+    private Connection connection(Queries queries) throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.createStatement()).thenAnswer(invocation -> {
+            Statement statement = mock(Statement.class);
+            when(statement.executeQuery(anyString()))
+                    .thenAnswer(query -> queries.execute(query.getArgument(0)));
+            return statement;
+        });
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(statement.executeQuery()).thenAnswer(query -> queries.execute(sql));
+            return statement;
+        });
+        doAnswer(invocation -> openConnections.decrementAndGet()).when(connection).close();
+        return connection;
+    }
+
+    private ResultSet percentiles() throws SQLException {
+        Array array = mock(Array.class);
+        when(array.getArray()).thenReturn(cuts);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getArray(1)).thenReturn(array);
+        return rs;
+    }
+
+    private static ResultSet snapshotRow() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString(1)).thenReturn("00000003-00000002-1");
+        when(rs.getLong(2)).thenReturn(1L);
+        when(rs.getLong(3)).thenReturn(100L);
+        return rs;
+    }
+}
@@ -0,0 +1,324 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.StudentRow;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads the stream back by the Arrow IPC spec, checking the alignment strict readers insist on,
+ * and with Arrow's own Java reader.
+ */
+class ArrowStreamWriterTest {
+
+    private static final int SCHEMA = 1;
+    private static final int DICTIONARY_BATCH = 2;
+    private static final int RECORD_BATCH = 3;
+
+    @Test
+    void finish_shouldWriteSchemaDictionariesAndBatches() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowStreamWriter writer = new ArrowStreamWriter(out, List.of("Class1"), 2);
+        writer.accept(new StudentRow(1, "Ann", "Lee", LocalDate.of(2005, 6, 15), "Class1", 71));
+        writer.accept(new StudentRow(2, null, "Moe", null, null, null));
+        writer.accept(new StudentRow(3, "Zoë", "Kay", LocalDate.of(2006, 1, 1), "Class9", 80));
+        writer.finish();
+
+        List<Message> messages = read(out.toByteArray());
+        assertEquals(List.of(SCHEMA, DICTIONARY_BATCH, RECORD_BATCH, DICTIONARY_BATCH, RECORD_BATCH),
+                messages.stream().map(Message::headerType).toList());
+
+        Message schema = messages.get(0);
+        int[] fields = schema.tables(schema.header(), 1);
+        List<String> names = new ArrayList<>();
+        for (int field : fields) {
+            names.add(schema.string(field, 0));
+        }
+        assertEquals(List.of("studentId", "firstName", "lastName", "dob", "class", "score"), names);
+        assertEquals(2, schema.fieldByte(fields[0], 2));
+        assertEquals(64, schema.fieldInt(schema.table(fields[0], 3), 0));
+        assertEquals(8, schema.fieldByte(fields[3], 2));
+        assertEquals(0, schema.fieldShort(schema.table(fields[3], 3), 0));
+        assertEquals(5, schema.fieldByte(fields[4], 2));
+        assertEquals(32, schema.fieldInt(schema.table(schema.table(fields[4], 4), 1), 0));
+
+        Message dictionary = messages.get(1);
+        assertEquals(0, dictionary.fieldByte(dictionary.header(), 2));
+        assertEquals(List.of("Class1"), dictionary.strings(dictionary.table(dictionary.header(), 1), 0, 1));
+        Message delta = messages.get(3);
+        assertEquals(1, delta.fieldByte(delta.header(), 2));
+        assertEquals(List.of("Class9"), delta.strings(delta.table(delta.header(), 1), 0, 1));
+
+        Message first = messages.get(2);
+        int batch = first.header();
+        assertEquals(2, first.fieldLong(batch, 0));
+        assertArrayEquals(new long[]{2, 0, 2, 1, 2, 0, 2, 1, 2, 1, 2, 1}, first.longPairs(batch, 1));
+        assertEquals(1L, first.buffer(batch, 1).getLong(0));
+        assertEquals(2L, first.buffer(batch, 1).getLong(8));
+        assertEquals(0b01, first.buffer(batch, 2).get(0));
+        assertEquals(Arrays.asList("Ann", null), first.strings(batch, 2, 2));
+        assertEquals(LocalDate.of(2005, 6, 15).toEpochDay(), first.buffer(batch, 9).getInt(0));
+        assertEquals(0, first.buffer(batch, 11).getInt(0));
+        assertEquals(71, first.buffer(batch, 13).getInt(0));
+
+        Message second = messages.get(4);
+        assertEquals(1, second.fieldLong(second.header(), 0));
+        assertEquals(1, second.buffer(second.header(), 11).getInt(0));
+        assertEquals(List.of("Zoë"), second.strings(second.header(), 2, 1));
+    }
+
+    @Test
+    void finish_shouldWriteOnlySchemaForNoRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ArrowStreamWriter(out, List.of(), 10).finish();
+
+        assertEquals(List.of(SCHEMA), read(out.toByteArray()).stream().map(Message::headerType).toList());
+    }
+
+    @Test
+    void finish_shouldBeReadableByArrowJava() throws IOException {
+        List<List<StudentRow>> batches = List.of(
+                // No nulls, empty strings, and a class missing from the initial dictionary
+                List.of(new StudentRow(1, "Ann", "Lee", LocalDate.of(2005, 6, 15), "Class1", 71),
+                        new StudentRow(2, "", "", LocalDate.of(1999, 12, 31), "Class2", 0)),
+                // Every nullable column null
+                Arrays.asList(new StudentRow(3, null, null, null, null, null),
+                        new StudentRow(4, null, null, null, null, null)),
+                // A class first seen after the first batch, sent as a delta dictionary
+                List.of(new StudentRow(5, "Zoë", "Kay", LocalDate.of(2006, 1, 1), "Class9", 80)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowStreamWriter writer = new ArrowStreamWriter(out, List.of("Class1"), 2);
+        for (List<StudentRow> batch : batches) {
+            for (StudentRow row : batch) {
+                writer.accept(row);
+            }
+        }
+        writer.finish();
+
+        ArrowJavaStream stream = readWithArrowJava(out.toByteArray());
+
+        assertEquals(batches, stream.batches());
+        assertEquals(List.of("Class1", "Class2", "Class9"), stream.classes());
+        Schema schema = stream.schema();
+        assertEquals(new ArrowType.Int(64, true), schema.findField("studentId").getType());
+        assertFalse(schema.findField("studentId").isNullable());
+        assertEquals(ArrowType.Utf8.INSTANCE, schema.findField("firstName").getType());
+        assertEquals(new ArrowType.Date(DateUnit.DAY), schema.findField("dob").getType());
+        // The reader types a dictionary-encoded field by its indices; its values are the utf8 dictionary read above
+        assertEquals(new ArrowType.Int(32, true), schema.findField("class").getType());
+        assertEquals(new ArrowType.Int(32, true), schema.findField("class").getDictionary().getIndexType());
+        assertEquals(new ArrowType.Int(32, true), schema.findField("score").getType());
+    }
+
+    @Test
+    void finish_shouldBeReadableByArrowJavaForNoRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ArrowStreamWriter(out, List.of(), 10).finish();
+
+        ArrowJavaStream stream = readWithArrowJava(out.toByteArray());
+
+        assertEquals(List.of(), stream.batches());
+        assertEquals(6, stream.schema().getFields().size());
+    }
+
+    private record ArrowJavaStream(Schema schema, List<List<StudentRow>> batches, List<String> classes) {
+    }
+
+    /** Reads every batch with Arrow's ArrowStreamReader, checking the stream ends with the end-of-stream marker. */
+    private static ArrowJavaStream readWithArrowJava(byte[] stream) throws IOException {
+        assertArrayEquals(new byte[]{-1, -1, -1, -1, 0, 0, 0, 0},
+                Arrays.copyOfRange(stream, stream.length - 8, stream.length));
+        ByteArrayInputStream in = new ByteArrayInputStream(stream);
+        List<List<StudentRow>> batches = new ArrayList<>();
+        List<String> classes = new ArrayList<>();
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(in, allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Schema schema = root.getSchema();
+            while (reader.loadNextBatch()) {
+                BigIntVector studentIds = (BigIntVector) root.getVector("studentId");
+                VarCharVector firstNames = (VarCharVector) root.getVector("firstName");
+                VarCharVector lastNames = (VarCharVector) root.getVector("lastName");
+                DateDayVector dobs = (DateDayVector) root.getVector("dob");
+                IntVector classIndexes = (IntVector) root.getVector("class");
+                IntVector scores = (IntVector) root.getVector("score");
+                long dictionaryId = schema.findField("class").getDictionary().getId();
+                VarCharVector dictionary = (VarCharVector) reader.getDictionaryVectors().get(dictionaryId).getVector();
+                List<StudentRow> batch = new ArrayList<>();
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    batch.add(new StudentRow(studentIds.get(row), text(firstNames, row), text(lastNames, row),
+                            dobs.isNull(row) ? null : LocalDate.ofEpochDay(dobs.get(row)),
+                            classIndexes.isNull(row) ? null : text(dictionary, classIndexes.get(row)),
+                            scores.isNull(row) ? null : scores.get(row)));
+                }
+                batches.add(batch);
+                classes.clear();
+                for (int index = 0; index < dictionary.getValueCount(); index++) {
+                    classes.add(text(dictionary, index));
+                }
+            }
+            assertEquals(0, in.available());
+            return new ArrowJavaStream(schema, batches, classes);
+        }
+    }
+
+    private static String text(VarCharVector vector, int index) {
+        return vector.isNull(index) ? null : new String(vector.get(index), StandardCharsets.UTF_8);
+    }
+
+    private static List<Message> read(byte[] stream) {
+        ByteBuffer in = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+        List<Message> messages = new ArrayList<>();
+        while (true) {
+            assertEquals(0xFFFFFFFF, in.getInt());
+            int metadataLength = in.getInt();
+            if (metadataLength == 0) {
+                assertFalse(in.hasRemaining());
+                return messages;
+            }
+            assertEquals(0, metadataLength % 8);
+            ByteBuffer metadata = slice(in, in.position(), metadataLength);
+            in.position(in.position() + metadataLength);
+            Message message = new Message(metadata, null);
+            assertEquals(4, message.fieldShort(message.root(), 0));
+            long bodyLength = message.fieldLong(message.root(), 3);
+            assertEquals(0, bodyLength % 8);
+            messages.add(new Message(metadata, slice(in, in.position(), (int) bodyLength)));
+            in.position(in.position() + (int) bodyLength);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        return buffer.duplicate().position(position).limit(position + length).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private record Message(ByteBuffer metadata, ByteBuffer body) {
+
+        int root() {
+            return metadata.getInt(0);
+        }
+
+        int headerType() {
+            return fieldByte(root(), 1);
+        }
+
+        int header() {
+            return table(root(), 2);
+        }
+
+        /** Position of a field in a table, checking the table is aligned; 0 if absent. */
+        int field(int table, int slot) {
+            assertEquals(0, table % 4);
+            int vtable = table - metadata.getInt(table);
+            assertEquals(0, vtable % 2);
+            int vtableSize = metadata.getShort(vtable);
+            int offset = 4 + 2 * slot < vtableSize ? metadata.getShort(vtable + 4 + 2 * slot) : 0;
+            return offset == 0 ? 0 : table + offset;
+        }
+
+        int fieldByte(int table, int slot) {
+            int field = field(table, slot);
+            return field == 0 ? 0 : metadata.get(field);
+        }
+
+        int fieldShort(int table, int slot) {
+            int field = aligned(field(table, slot), 2);
+            return field == 0 ? 0 : metadata.getShort(field);
+        }
+
+        int fieldInt(int table, int slot) {
+            int field = aligned(field(table, slot), 4);
+            return field == 0 ? 0 : metadata.getInt(field);
+        }
+
+        long fieldLong(int table, int slot) {
+            int field = aligned(field(table, slot), 8);
+            return field == 0 ? 0 : metadata.getLong(field);
+        }
+
+        int table(int table, int slot) {
+            int field = aligned(field(table, slot), 4);
+            assertNotEquals(0, field);
+            return field + metadata.getInt(field);
+        }
+
+        String string(int table, int slot) {
+            int string = table(table, slot);
+            int length = metadata.getInt(string);
+            assertEquals(0, metadata.get(string + 4 + length));
+            byte[] bytes = new byte[length];
+            metadata.get(string + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int[] tables(int table, int slot) {
+            int vector = table(table, slot);
+            int[] tables = new int[metadata.getInt(vector)];
+            for (int i = 0; i < tables.length; i++) {
+                int element = vector + 4 + 4 * i;
+                tables[i] = element + metadata.getInt(element);
+            }
+            return tables;
+        }
+
+        long[] longPairs(int table, int slot) {
+            int vector = table(table, slot);
+            assertEquals(0, (vector + 4) % 8);
+            long[] values = new long[metadata.getInt(vector) * 2];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = metadata.getLong(vector + 4 + 8 * i);
+            }
+            return values;
+        }
+
+        /** Body buffer {@code index} of a record batch, checking it starts on an 8-byte boundary. */
+        ByteBuffer buffer(int recordBatch, int index) {
+            long[] buffers = longPairs(recordBatch, 2);
+            assertEquals(0, buffers[index * 2] % 8);
+            return slice(body, (int) buffers[index * 2], (int) buffers[index * 2 + 1]);
+        }
+
+        /** The utf8 column whose validity buffer is {@code firstBuffer}, nulls where the bitmap says so. */
+        List<String> strings(int recordBatch, int firstBuffer, int rows) {
+            ByteBuffer validity = buffer(recordBatch, firstBuffer);
+            ByteBuffer offsets = buffer(recordBatch, firstBuffer + 1);
+            ByteBuffer data = buffer(recordBatch, firstBuffer + 2);
+            List<String> values = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                boolean valid = validity.limit() == 0 || (validity.get(row >> 3) & (1 << (row & 7))) != 0;
+                int start = offsets.getInt(4 * row);
+                byte[] bytes = new byte[offsets.getInt(4 * row + 4) - start];
+                data.get(start, bytes);
+                values.add(valid ? new String(bytes, StandardCharsets.UTF_8) : null);
+            }
+            return values;
+        }
+
+        private static int aligned(int position, int alignment) {
+            assertEquals(0, position % alignment);
+            return position;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.compulynx.studentdata.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedExecutorViewTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_shouldRunAtMostParallelismTasksAtOnce() throws Exception {
+        BoundedExecutorView view = new BoundedExecutorView(executor, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+
+        for (int task = 0; task < 10; task++) {
+            tasks.add(view.submit(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, peak.get());
+    }
+
+    @Test
+    void shutdown_shouldWaitForTheViewsTasksAndLeaveTheSharedExecutorRunning() throws Exception {
+        BoundedExecutorView view = new BoundedExecutorView(executor, 1);
+        AtomicInteger ran = new AtomicInteger();
+        for (int task = 0; task < 3; task++) {
+            view.submit(ran::incrementAndGet);
+        }
+
+        view.shutdown();
+
+        assertTrue(view.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, ran.get());
+        assertThrows(RejectedExecutionException.class, () -> view.submit(ran::incrementAndGet));
+        assertEquals(1, executor.submit(() -> 1).get(5, TimeUnit.SECONDS));
+    }
+}
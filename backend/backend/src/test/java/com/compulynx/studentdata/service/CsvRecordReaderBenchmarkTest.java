@@ -0,0 +1,44 @@
+package com.compulynx.studentdata.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static com.compulynx.studentdata.service.CsvRecordReaderTest.generate;
+import static com.compulynx.studentdata.service.CsvRecordReaderTest.parseFields;
+import static com.compulynx.studentdata.service.CsvRecordReaderTest.splitFields;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Wall-clock comparison, left out of the default build; run with {@code mvn test -Pbenchmark}. */
+@Tag("benchmark")
+class CsvRecordReaderBenchmarkTest {
+
+    private static final int LINES = 1_000_000;
+
+    @Test
+    void next_shouldMatchOrBeatLineSplitting() throws IOException {
+        for (boolean quoted : new boolean[] {false, true}) {
+            byte[] csv = generate(LINES, quoted);
+            long parser = Long.MAX_VALUE;
+            long split = Long.MAX_VALUE;
+            for (int run = 0; run < 8; run++) {
+                long start = System.nanoTime();
+                parseFields(csv);
+                long parserTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                splitFields(csv);
+                long splitTime = System.nanoTime() - start;
+
+                if (run > 0) { // first run is warmup
+                    parser = Math.min(parser, parserTime);
+                    split = Math.min(split, splitTime);
+                }
+            }
+            assertTrue(parser <= split, String.format(
+                    "CSV %s, %d lines: CsvRecordReader took %d ms, BufferedReader+split %d ms",
+                    quoted ? "quoted" : "plain", LINES, parser / 1_000_000, split / 1_000_000));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.compulynx.studentdata.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void next_shouldSplitPlainFieldsAndKeepTrailingEmptyField() throws IOException {
+        List<List<String>> records = readAll("a,b,c\n1,,3,\n", false);
+
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("1", "", "3", "")), records);
+    }
+
+    @Test
+    void next_shouldUnquoteFieldsWithCommasAndEscapedQuotes() throws IOException {
+        List<List<String>> records = readAll("1,\"Doe, John\",\"O\"\"Brien\",\"\"\n", false);
+
+        assertEquals(List.of(List.of("1", "Doe, John", "O\"Brien", "")), records);
+    }
+
+    @Test
+    void next_shouldKeepLineBreaksInsideQuotesAndStripCrLf() throws IOException {
+        List<List<String>> records = readAll("1,\"two\r\nlines\",x\r\n2,\"a\nb\",y\r\n", false);
+
+        assertEquals(List.of(List.of("1", "two\r\nlines", "x"), List.of("2", "a\nb", "y")), records);
+    }
+
+    @Test
+    void next_shouldTreatQuotesInsideUnquotedFieldsAsText() throws IOException {
+        List<List<String>> records = readAll("5 ft 3\",x\n\"a\" b,y\n", false);
+
+        assertEquals(List.of(List.of("5 ft 3\"", "x"), List.of("a b", "y")), records);
+    }
+
+    @Test
+    void next_shouldHandleQuotesSplitAcrossReads() throws IOException {
+        String csv = "1,\"Doe, \"\"JJ\"\"\nJohn\",end\r\n2,\"\",last";
+
+        // One byte per read puts every quote, escape and line break on a buffer boundary
+        assertEquals(List.of(List.of("1", "Doe, \"JJ\"\nJohn", "end"), List.of("2", "", "last")),
+                readAll(csv, true));
+    }
+
+    @Test
+    void recordNumber_shouldCountRecordsNotPhysicalLines() throws IOException {
+        try (CsvRecordReader reader = reader("h\n\"a\nb\"\nc\n", false)) {
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+
+            assertEquals(3, reader.recordNumber());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void next_shouldFindTheFieldsLineSplittingFinds() throws IOException {
+        for (boolean quoted : new boolean[] {false, true}) {
+            byte[] csv = generate(1_000, quoted);
+
+            assertEquals(splitFields(csv), parseFields(csv));
+        }
+    }
+
+    static byte[] generate(int lines, boolean quoted) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(lines * 48);
+        StringBuilder line = new StringBuilder();
+        for (int i = 1; i <= lines; i++) {
+            line.setLength(0);
+            line.append(i).append(',');
+            // Quoted values carry no commas so both tokenizers see the same number of fields
+            line.append(quoted ? "\"John\"" : "John").append(',');
+            line.append(quoted ? "\"Doe\"" : "Doe").append(',');
+            line.append("2005-06-15,Class").append(i % 5 + 1).append(',').append(i % 100).append('\n');
+            out.writeBytes(line.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        return out.toByteArray();
+    }
+
+    /** Touches every field the way the encoder does: offsets only. */
+    static int parseFields(byte[] csv) throws IOException {
+        int total = 0;
+        try (CsvRecordReader reader = new CsvRecordReader(new ByteArrayInputStream(csv))) {
+            while (reader.next()) {
+                for (int field = 0; field < reader.fieldCount(); field++) {
+                    total += reader.end(field) - reader.start(field);
+                }
+            }
+        }
+        return total;
+    }
+
+    /** The tokenizing the upload fallback used to do per line. */
+    static int splitFields(byte[] csv) throws IOException {
+        int total = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String token : line.split(",", -1)) {
+                    String value = token.trim();
+                    if (value.length() > 1 && value.charAt(0) == '"') {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    total += value.length();
+                }
+            }
+        }
+        return total;
+    }
+
+    private static List<List<String>> readAll(String csv, boolean trickle) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvRecordReader reader = reader(csv, trickle)) {
+            while (reader.next()) {
+                List<String> fields = new ArrayList<>();
+                for (int field = 0; field < reader.fieldCount(); field++) {
+                    fields.add(new String(reader.buffer(), reader.start(field),
+                            reader.end(field) - reader.start(field), StandardCharsets.UTF_8));
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    private static CsvRecordReader reader(String csv, boolean trickle) {
+        InputStream in = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+        if (!trickle) {
+            return new CsvRecordReader(in);
+        }
+        return new CsvRecordReader(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return in.read(b, off, Math.min(len, 1));
+            }
+        });
+    }
+}
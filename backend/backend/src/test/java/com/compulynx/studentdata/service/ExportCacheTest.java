@@ -0,0 +1,224 @@
+package com.compulynx.studentdata.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final DatasetVersion datasetVersion = new DatasetVersion();
+
+    @Test
+    void writeThrough_shouldStreamExportAndCacheItOnceComplete() throws IOException {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 1000);
+        ExportCache.Key key = cache.key("csv", 1L, "Class1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cache.writeThrough(key, out, export -> {
+            export.write("a,b\n".getBytes(StandardCharsets.UTF_8));
+            assertNull(cache.get(key));
+        });
+
+        assertEquals("a,b\n", out.toString(StandardCharsets.UTF_8));
+        ExportCache.Entry entry = cache.get(key);
+        assertEquals("a,b\n", Files.readString(entry.file()));
+        assertEquals(cache.etag(cache.key("csv", 1L, "Class1")), entry.etag());
+        assertNotEquals(entry.etag(), cache.etag(cache.key("csv", 2L, "Class1")));
+    }
+
+    @Test
+    void writeThrough_shouldLeaveNothingBehindWhenExportFails() throws IOException {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 1000);
+        ExportCache.Key key = cache.key("pdf");
+
+        assertThrows(IOException.class, () -> cache.writeThrough(key, new ByteArrayOutputStream(), export -> {
+            export.write(1);
+            throw new IOException("database went away");
+        }));
+
+        assertNull(cache.get(key));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedEntriesPastMaxSize() throws IOException {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 10);
+        ExportCache.Key first = cache.key("first");
+        ExportCache.Key second = cache.key("second");
+        ExportCache.Key third = cache.key("third");
+        write(cache, first, "1111");
+        write(cache, second, "2222");
+        assertNotNull(cache.get(first));
+
+        write(cache, third, "3333");
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+    }
+
+    @Test
+    void open_shouldKeepReadingAnEntryEvictedAfterItWasOpened() throws IOException {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 4);
+        ExportCache.Key first = cache.key("first");
+        write(cache, first, "1111");
+
+        try (FileChannel channel = cache.open(first)) {
+            write(cache, cache.key("second"), "2222");
+            assertNull(cache.open(first));
+
+            ByteBuffer content = ByteBuffer.allocate(4);
+            channel.read(content, 0);
+            assertEquals("1111", new String(content.array(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void put_shouldDropExportsOfOlderDatasetVersions() throws IOException {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 1000);
+        ExportCache.Key before = cache.key("csv");
+        write(cache, before, "old");
+
+        datasetVersion.changed();
+        ExportCache.Key after = cache.key("csv");
+        assertNull(cache.get(after));
+        write(cache, after, "new");
+
+        assertNull(cache.get(before));
+        assertEquals("new", Files.readString(cache.get(after).file()));
+    }
+
+    @Test
+    void writeThrough_shouldNotCacheExportsOverlappingAnUpload() throws IOException {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 1000);
+        ExportCache.Key key = cache.key("csv");
+
+        cache.writeThrough(key, new ByteArrayOutputStream(), export -> datasetVersion.changed());
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void writeThrough_shouldShareOneRunningExportBetweenIdenticalRequests() throws Exception {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 0);
+        ExportCache.Key key = cache.key("csv");
+        byte[] firstHalf = new byte[100_000];
+        byte[] secondHalf = new byte[100_000];
+        Arrays.fill(firstHalf, (byte) 'a');
+        Arrays.fill(secondHalf, (byte) 'b');
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch halfWritten = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream leaderOut = new ByteArrayOutputStream();
+        ExportCache.ExportWriter writer = out -> {
+            runs.incrementAndGet();
+            out.write(firstHalf);
+            halfWritten.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            out.write(secondHalf);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> leader = executor.submit(() -> {
+                cache.writeThrough(key, leaderOut, writer);
+                return null;
+            });
+            assertTrue(halfWritten.await(5, TimeUnit.SECONDS));
+
+            CountDownLatch followerStarted = new CountDownLatch(1);
+            ByteArrayOutputStream followerOut = new ByteArrayOutputStream() {
+                @Override
+                public synchronized void write(byte[] b, int off, int len) {
+                    super.write(b, off, len);
+                    followerStarted.countDown();
+                }
+            };
+            Future<?> follower = executor.submit(() -> {
+                cache.writeThrough(key, followerOut, writer);
+                return null;
+            });
+            // The follower gets the bytes written so far while the export is still running
+            assertTrue(followerStarted.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            leader.get(5, TimeUnit.SECONDS);
+            follower.get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, runs.get());
+            assertEquals(200_000, followerOut.size());
+            assertArrayEquals(leaderOut.toByteArray(), followerOut.toByteArray());
+            assertNull(cache.get(key));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void writeThrough_shouldFailFollowersWhenTheSharedExportFails() throws Exception {
+        ExportCache cache = new ExportCache(datasetVersion, directory.toString(), 1000);
+        ExportCache.Key key = cache.key("pdf");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> leader = executor.submit(() -> {
+                cache.writeThrough(key, new ByteArrayOutputStream(), out -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    throw new IOException("database went away");
+                });
+                return null;
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<?> follower = executor.submit(() -> {
+                cache.writeThrough(key, new ByteArrayOutputStream(), out -> fail("export should not run twice"));
+                return null;
+            });
+            // Give the follower time to join before the shared export fails
+            Thread.sleep(200);
+            release.countDown();
+
+            assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+            assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+            assertNull(cache.get(key));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void write(ExportCache cache, ExportCache.Key key, String content) throws IOException {
+        cache.writeThrough(key, new ByteArrayOutputStream(), out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
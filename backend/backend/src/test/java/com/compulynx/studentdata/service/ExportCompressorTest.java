@@ -0,0 +1,66 @@
+package com.compulynx.studentdata.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportCompressorTest {
+
+    private final ExportCompressor compressor = new ExportCompressor(6);
+
+    @Test
+    void negotiate_shouldPickTheCodingTheClientWeighsHighest() {
+        assertEquals("gzip", compressor.negotiate(acceptEncoding("gzip, deflate, br")));
+        assertEquals("deflate", compressor.negotiate(acceptEncoding("gzip;q=0.5, deflate")));
+        assertEquals("deflate", compressor.negotiate(acceptEncoding("gzip;q=0, *")));
+        assertEquals("gzip", compressor.negotiate(acceptEncoding("*")));
+        assertNull(compressor.negotiate(acceptEncoding("br, identity")));
+        assertNull(compressor.negotiate(acceptEncoding("gzip;q=0")));
+        assertNull(compressor.negotiate(new HttpHeaders()));
+    }
+
+    @Test
+    void negotiate_shouldSendIdentityWhenCompressionIsOff() {
+        assertNull(new ExportCompressor(0).negotiate(acceptEncoding("gzip")));
+    }
+
+    @Test
+    void compress_shouldRoundTripBothCodings() throws IOException {
+        String csv = "studentId,firstName\n" + "1,First1\n".repeat(10_000);
+        ExportCache.ExportWriter writer = out -> out.write(csv.getBytes(StandardCharsets.UTF_8));
+
+        byte[] gzip = write(compressor.compress(ExportCompressor.GZIP, writer));
+        byte[] deflate = write(compressor.compress(ExportCompressor.DEFLATE, writer));
+
+        assertTrue(gzip.length < csv.length() / 10);
+        assertEquals(csv, read(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+        assertEquals(csv, read(new InflaterInputStream(new ByteArrayInputStream(deflate))));
+    }
+
+    private static HttpHeaders acceptEncoding(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, value);
+        return headers;
+    }
+
+    private static byte[] write(ExportCache.ExportWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return out.toByteArray();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
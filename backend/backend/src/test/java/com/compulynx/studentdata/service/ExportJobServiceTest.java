@@ -0,0 +1,153 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.ExportJobNotFoundException;
+import com.compulynx.studentdata.exception.ExportJobNotReadyException;
+import com.compulynx.studentdata.model.ExportFormat;
+import com.compulynx.studentdata.model.ExportJobState;
+import com.compulynx.studentdata.model.SheetLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+
+    @Mock
+    private ExportService exportService;
+
+    @TempDir
+    Path tempDir;
+
+    private ThreadPoolTaskExecutor executor;
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        exportJobService = newService();
+    }
+
+    private ExportJobService newService() throws IOException {
+        FilePathService filePathService = new FilePathService() {
+            @Override
+            public Path resolveDirectory() {
+                return tempDir;
+            }
+        };
+        ExportJobService service = new ExportJobService(exportService, filePathService, executor);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(1));
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_shouldWriteArtifactIntoOutputDirectory() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write("a,b\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportCsv(eq(5L), eq("Class1"), eq(2), any());
+
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, 5L, "Class1", SheetLayout.ROLLOVER, 2, false);
+        job.task().get(5, TimeUnit.SECONDS);
+
+        assertEquals(ExportJobState.DONE, job.state());
+        assertEquals(4, job.status().bytesWritten());
+        Path artifact = exportJobService.artifact(job.id());
+        assertTrue(artifact.startsWith(tempDir.toRealPath().resolve("exports")));
+        assertEquals("a,b\n", Files.readString(artifact));
+    }
+
+    @Test
+    void artifact_shouldRejectJobsThatAreNotDone() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(exportService).exportPdf(eq(1), any());
+
+        ExportJob job = exportJobService.submit(ExportFormat.PDF, null, null, SheetLayout.ROLLOVER, 1, false);
+
+        assertThrows(ExportJobNotReadyException.class, () -> exportJobService.artifact(job.id()));
+        release.countDown();
+        job.task().get(5, TimeUnit.SECONDS);
+        assertNotNull(exportJobService.artifact(job.id()));
+    }
+
+    @Test
+    void submit_shouldRecordFailureAndRemovePartialArtifact() throws Exception {
+        doThrow(new IOException("database went away")).when(exportService).exportBundle(eq(true), any());
+
+        ExportJob job = exportJobService.submit(ExportFormat.BUNDLE, null, null, SheetLayout.ROLLOVER, 1, true);
+        job.task().get(5, TimeUnit.SECONDS);
+
+        assertEquals(ExportJobState.FAILED, job.state());
+        assertEquals("database went away", job.status().error());
+        assertFalse(Files.exists(job.file()));
+    }
+
+    @Test
+    void cancel_shouldStopJobAndRemoveArtifact() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(10_000);
+            return null;
+        }).when(exportService).exportExcel(eq(SheetLayout.BY_CLASS), eq(1), any());
+
+        ExportJob job = exportJobService.submit(ExportFormat.EXCEL, null, null, SheetLayout.BY_CLASS, 1, false);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        exportJobService.cancel(job.id());
+
+        assertEquals(ExportJobState.CANCELLED, job.state());
+        assertTrue(job.task().isCancelled());
+        assertFalse(Files.exists(job.file()));
+    }
+
+    @Test
+    void expireJobs_shouldRemoveFinishedJobsAndTheirArtifacts() throws Exception {
+        ExportJob job = exportJobService.submit(ExportFormat.PDF, null, null, SheetLayout.ROLLOVER, 1, false);
+        job.task().get(5, TimeUnit.SECONDS);
+        assertTrue(Files.exists(job.file()));
+
+        ReflectionTestUtils.setField(exportJobService, "ttl", Duration.ZERO);
+        exportJobService.expireJobs();
+
+        assertThrows(ExportJobNotFoundException.class, () -> exportJobService.get(job.id()));
+        assertFalse(Files.exists(job.file()));
+    }
+
+    @Test
+    void constructor_shouldRemoveArtifactsLeftBeforeARestart() throws Exception {
+        ExportJob job = exportJobService.submit(ExportFormat.PDF, null, null, SheetLayout.ROLLOVER, 1, false);
+        job.task().get(5, TimeUnit.SECONDS);
+        assertTrue(Files.exists(job.file()));
+
+        newService();
+
+        assertFalse(Files.exists(job.file()));
+        assertTrue(Files.isDirectory(job.file().getParent()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.InvalidFileReferenceException;
+import com.compulynx.studentdata.exception.ManagedFileNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilePathServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path outputDir;
+    private FilePathService filePathService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outputDir = Files.createDirectory(tempDir.resolve("output"));
+        filePathService = new FilePathService() {
+            @Override
+            public Path resolveDirectory() {
+                return outputDir;
+            }
+        };
+    }
+
+    @Test
+    void resolveManagedFile_shouldResolveFileNameAndPathInsideDirectory() throws IOException {
+        Path csv = Files.writeString(outputDir.resolve("students-processed-20250101120000.csv"), "x");
+
+        assertEquals(csv.toRealPath(), filePathService.resolveManagedFile("students-processed-20250101120000.csv"));
+        assertEquals(csv.toRealPath(), filePathService.resolveManagedFile(csv.toString()));
+    }
+
+    @Test
+    void resolveManagedFile_shouldRejectTraversalOutsideDirectory() throws IOException {
+        Files.writeString(tempDir.resolve("secret.csv"), "x");
+
+        assertThrows(InvalidFileReferenceException.class, () -> filePathService.resolveManagedFile("../secret.csv"));
+        assertThrows(InvalidFileReferenceException.class,
+                () -> filePathService.resolveManagedFile(tempDir.resolve("secret.csv").toString()));
+    }
+
+    @Test
+    void resolveManagedFile_shouldRejectSymlinkEscapingDirectory() throws IOException {
+        Path secret = Files.writeString(tempDir.resolve("secret.csv"), "x");
+        Files.createSymbolicLink(outputDir.resolve("link.csv"), secret);
+
+        assertThrows(InvalidFileReferenceException.class, () -> filePathService.resolveManagedFile("link.csv"));
+    }
+
+    @Test
+    void resolveManagedFile_shouldReportMissingFile() {
+        assertThrows(ManagedFileNotFoundException.class, () -> filePathService.resolveManagedFile("missing.csv"));
+    }
+}
@@ -0,0 +1,274 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.UploadRejectedException;
+import com.compulynx.studentdata.model.DuplicatePolicy;
+import com.compulynx.studentdata.model.ValidationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentCopyEncoderTest {
+
+    private static final String DUPLICATES_CSV = """
+            studentId,firstName,lastName,dob,class,score
+            1,John,Doe,2005-06-15,Class1,70
+            2,Jane,Smith,2006-03-20,Class2,75
+            1,Johnny,Doe,2005-06-15,Class3,90
+            """;
+
+    @Test
+    void encode_shouldSkipHeaderAndAddFiveToScore() throws Exception {
+        String csv = """
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,70
+                2,Jane,Smith,2006-03-20,Class2,75
+                """;
+
+        EncodedOutput output = encode(csv, 1024, 64);
+
+        assertEquals(2, output.rows);
+        assertEquals(row("1,John,Doe,2005-06-15,Class1,75") + row("2,Jane,Smith,2006-03-20,Class2,80"), output.text);
+    }
+
+    @Test
+    void encode_shouldTrimFieldsAndHandleCrLf() throws Exception {
+        String csv = "studentId,firstName,lastName,dob,class,score\r\n"
+                + " 1 , John ,Doe, 2005-06-15 ,Class1, 70 \r\n";
+
+        EncodedOutput output = encode(csv, 1024, 64);
+
+        assertEquals(row("1,John,Doe,2005-06-15,Class1,75"), output.text);
+    }
+
+    @Test
+    void encode_shouldQuoteOnlyFieldsThatNeedIt() throws Exception {
+        String csv = "studentId,firstName,lastName,dob,class,score\n"
+                + "1,\"Doe, John\",\"O\"\"Brien\",\"2005-06-15\",Class1,70\n"
+                + "2,\"Jane\nMarie\",Smith,2006-03-20,Class2,75\n";
+
+        EncodedOutput output = encode(csv, 1024, 64);
+
+        assertEquals(2, output.rows);
+        assertEquals(row("1,\"Doe, John\",\"O\"\"Brien\",2005-06-15,Class1,75")
+                + row("2,\"Jane\nMarie\",Smith,2006-03-20,Class2,80"), output.text);
+    }
+
+    @Test
+    void encode_shouldSkipShortRowsAndHandleMissingTrailingNewline() throws Exception {
+        String csv = "studentId,firstName,lastName,dob,class,score\n"
+                + "invalid,row\n"
+                + "\n"
+                + "3,Bob,Wilson,2005-11-10,Class1,80";
+
+        EncodedOutput output = encodeSkippingInvalid(csv);
+
+        assertEquals(1, output.rows);
+        assertEquals(row("3,Bob,Wilson,2005-11-10,Class1,85"), output.text);
+    }
+
+    @Test
+    void encode_shouldSpreadRowsAcrossChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("studentId,firstName,lastName,dob,class,score\n");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            csv.append(i).append(",First").append(i).append(",Last").append(i).append(",2005-06-15,Class1,60\n");
+            expected.append(row(i + ",First" + i + ",Last" + i + ",2005-06-15,Class1,65"));
+        }
+
+        EncodedOutput output = encode(csv.toString(), 128, 1024);
+
+        assertEquals(1000, output.rows);
+        assertTrue(output.chunks > 1, "Rows should span several chunks");
+        assertEquals(expected.toString(), output.text);
+    }
+
+    @Test
+    void encode_shouldReadFilesThroughTheirChannel(@TempDir Path tempDir) throws Exception {
+        StringBuilder csv = new StringBuilder("studentId,firstName,lastName,dob,class,score\n");
+        for (int i = 1; i <= 20000; i++) {
+            csv.append(i).append(",First").append(i).append(",Last").append(i).append(",2005-06-15,Class1,60\n");
+        }
+        Path file = Files.writeString(tempDir.resolve("students.csv"), csv);
+
+        EncodedOutput fromFile = drain(new CopyBufferPipe(64 * 1024, 64), new FileSystemResource(file));
+        EncodedOutput fromStream = encode(csv.toString(), 64 * 1024, 64);
+
+        assertEquals(20000, fromFile.rows);
+        assertEquals(fromStream.text, fromFile.text);
+    }
+
+    @Test
+    void encode_shouldSkipInvalidRowsAndCountErrorsPerColumn() throws Exception {
+        String csv = """
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,abc
+                2,Jane,Smith,2006-02-30,Class6,75
+                3,Bob,Wilson,2005-11-10,Class1,80
+                x,row
+                """;
+
+        EncodedOutput output = encodeSkippingInvalid(csv);
+
+        assertEquals(row("3,Bob,Wilson,2005-11-10,Class1,85"), output.text);
+        assertEquals(3, output.validation.rejected());
+        assertEquals(Map.of("studentId", 1, "lastName", 1, "dob", 2, "class", 2, "score", 2),
+                output.validation.columnErrors());
+        assertEquals(List.of(2L, 3L, 5L), output.validation.rejectedLines());
+    }
+
+    @Test
+    void encode_shouldRejectUploadAtFirstInvalidRowByDefault() {
+        String csv = """
+                studentId,firstName,lastName,dob,class,score
+                1,John,Doe,2005-06-15,Class1,70
+                2,Jane,Smith,2006-02-30,Class1,75
+                """;
+        CopyBufferPipe pipe = new CopyBufferPipe(1024, 4);
+
+        UploadRejectedException e = assertThrows(UploadRejectedException.class,
+                () -> new StudentCopyEncoder(pipe, DuplicatePolicy.LAST_WINS).encode(resource(csv)));
+
+        assertEquals("Invalid dob on line 3", e.getMessage());
+    }
+
+    @Test
+    void encode_shouldFailPipeWhenRecordDoesNotFitChunk() {
+        String csv = "studentId,firstName,lastName,dob,class,score\n1," + "J".repeat(600) + ",Doe,2005-06-15,Class1,70\n";
+        CopyBufferPipe pipe = new CopyBufferPipe(1024, 4);
+
+        StudentCopyEncoder encoder = new StudentCopyEncoder(pipe, DuplicatePolicy.LAST_WINS);
+
+        assertThrows(IOException.class, () -> encoder.encode(resource(csv)));
+        assertThrows(IOException.class, pipe::take);
+    }
+
+    @Test
+    void encode_firstWinsShouldDropRepeatedIds() throws Exception {
+        EncodedOutput output = encode(DUPLICATES_CSV, DuplicatePolicy.FIRST_WINS);
+
+        assertEquals(2, output.rows);
+        assertEquals(1, output.duplicates);
+        assertNull(output.lateRows);
+        assertEquals(row("1,John,Doe,2005-06-15,Class1,75") + row("2,Jane,Smith,2006-03-20,Class2,80"), output.text);
+    }
+
+    @Test
+    void encode_lastWinsShouldSpillRepeatedIdsWithLineNumbers() throws Exception {
+        EncodedOutput output = encode(DUPLICATES_CSV, DuplicatePolicy.LAST_WINS);
+
+        assertEquals(2, output.rows);
+        assertEquals(1, output.duplicates);
+        assertEquals("4," + row("1,Johnny,Doe,2005-06-15,Class3,95"), output.lateRows);
+    }
+
+    @Test
+    void encode_rejectShouldFailOnFirstRepeatedId() {
+        CopyBufferPipe pipe = new CopyBufferPipe(1024, 4);
+        StudentCopyEncoder encoder = new StudentCopyEncoder(pipe, DuplicatePolicy.REJECT);
+
+        UploadRejectedException e = assertThrows(UploadRejectedException.class,
+                () -> encoder.encode(resource(DUPLICATES_CSV)));
+        assertEquals("Duplicate studentId 1 on line 4", e.getMessage());
+        assertThrows(IOException.class, pipe::take);
+    }
+
+    @Test
+    void encode_shouldSkipCommittedLinesButReplayTheirDuplicates() throws Exception {
+        String csv = DUPLICATES_CSV + "3,Bob,Wilson,2005-11-10,Class1,80\n";
+        CopyBufferPipe pipe = new CopyBufferPipe(1024, 4);
+        StudentCopyEncoder encoder = new StudentCopyEncoder(pipe, DuplicatePolicy.LAST_WINS, 4);
+
+        int rows = encoder.encode(resource(csv));
+        CopyBufferPipe.Chunk chunk = pipe.take();
+
+        assertEquals(1, rows);
+        assertEquals(row("3,Bob,Wilson,2005-11-10,Class1,85"), new String(chunk.data, 0, chunk.length, StandardCharsets.UTF_8));
+        assertEquals(5, chunk.lastLine);
+        assertEquals(1, encoder.duplicates());
+        assertEquals("4," + row("1,Johnny,Doe,2005-06-15,Class3,95"), Files.readString(encoder.lateRows()));
+        encoder.discardLateRows();
+    }
+
+    @Test
+    void rowHash_shouldIgnoreInputFormattingButNotContent() throws Exception {
+        EncodedOutput plain = encode("h\n1,John,Doe,2005-06-15,Class1,70\n", 1024, 4);
+        EncodedOutput padded = encode("h\r\n 1 , John ,Doe,2005-06-15, Class1 ,70\r\n", 1024, 4);
+        EncodedOutput changed = encode("h\n1,John,Doe,2005-06-15,Class1,71\n", 1024, 4);
+
+        assertEquals(plain.text, padded.text);
+        assertNotEquals(plain.text, changed.text);
+    }
+
+    private EncodedOutput encode(String csv, int chunkSize, int chunkCount) throws Exception {
+        return encode(csv, chunkSize, chunkCount, DuplicatePolicy.LAST_WINS);
+    }
+
+    private EncodedOutput encodeSkippingInvalid(String csv) throws Exception {
+        CopyBufferPipe pipe = new CopyBufferPipe(1024, 64);
+        StudentCopyEncoder encoder = new StudentCopyEncoder(pipe, DuplicatePolicy.LAST_WINS, 0,
+                new StudentRecordValidator(StudentRecordValidator.Rules.defaults(), true));
+        return drain(pipe, encoder, resource(csv));
+    }
+
+    private EncodedOutput encode(String csv, DuplicatePolicy policy) throws Exception {
+        return encode(csv, 1024, 64, policy);
+    }
+
+    private EncodedOutput encode(String csv, int chunkSize, int chunkCount, DuplicatePolicy policy) throws Exception {
+        return drain(new CopyBufferPipe(chunkSize, chunkCount), resource(csv), policy);
+    }
+
+    private EncodedOutput drain(CopyBufferPipe pipe, InputStreamSource source) throws Exception {
+        return drain(pipe, source, DuplicatePolicy.LAST_WINS);
+    }
+
+    private EncodedOutput drain(CopyBufferPipe pipe, InputStreamSource source, DuplicatePolicy policy) throws Exception {
+        return drain(pipe, new StudentCopyEncoder(pipe, policy), source);
+    }
+
+    private EncodedOutput drain(CopyBufferPipe pipe, StudentCopyEncoder encoder, InputStreamSource source)
+            throws Exception {
+        int rows = encoder.encode(source);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int chunks = 0;
+        CopyBufferPipe.Chunk chunk;
+        while ((chunk = pipe.take()) != null) {
+            out.write(chunk.data, 0, chunk.length);
+            pipe.release(chunk);
+            chunks++;
+        }
+        String lateRows = null;
+        if (encoder.lateRows() != null) {
+            lateRows = Files.readString(encoder.lateRows());
+            encoder.discardLateRows();
+        }
+        return new EncodedOutput(rows, chunks, out.toString(StandardCharsets.UTF_8), encoder.duplicates(), lateRows,
+                encoder.validation());
+    }
+
+    private static String row(String encoded) {
+        byte[] bytes = encoded.getBytes(StandardCharsets.UTF_8);
+        return encoded + "," + StudentCopyEncoder.rowHash(bytes, 0, bytes.length) + "\n";
+    }
+
+    private ByteArrayResource resource(String csv) {
+        return new ByteArrayResource(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record EncodedOutput(int rows, int chunks, String text, int duplicates, String lateRows,
+                                 ValidationReport validation) {
+    }
+}
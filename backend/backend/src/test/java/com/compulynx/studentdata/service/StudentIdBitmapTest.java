@@ -0,0 +1,62 @@
+package com.compulynx.studentdata.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentIdBitmapTest {
+
+    @Test
+    void add_shouldReportRepeatedIds() {
+        StudentIdBitmap ids = new StudentIdBitmap();
+
+        assertTrue(ids.add(42));
+        assertTrue(ids.add(7));
+        assertFalse(ids.add(42));
+        assertTrue(ids.contains(7));
+        assertFalse(ids.contains(8));
+        assertEquals(2, ids.cardinality());
+    }
+
+    @Test
+    void add_shouldStayCorrectWhenContainersTurnDense() {
+        StudentIdBitmap ids = new StudentIdBitmap();
+        for (long id = 0; id < 10_000; id += 2) {
+            assertTrue(ids.add(id));
+        }
+
+        for (long id = 0; id < 10_000; id++) {
+            assertEquals(id % 2 == 0, ids.contains(id), "id " + id);
+        }
+        assertFalse(ids.add(9_998));
+        assertEquals(5_000, ids.cardinality());
+    }
+
+    @Test
+    void add_shouldMatchHashSetForRandomIds() {
+        StudentIdBitmap ids = new StudentIdBitmap();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(28);
+        for (int i = 0; i < 200_000; i++) {
+            long id = random.nextInt(1 << 22) + (random.nextBoolean() ? 0 : 1L << 40);
+            assertEquals(expected.add(id), ids.add(id));
+        }
+
+        assertEquals(expected.size(), ids.cardinality());
+    }
+
+    @Test
+    void sizeInBytes_shouldStaySmallForTenMillionSequentialIds() {
+        StudentIdBitmap ids = new StudentIdBitmap();
+        for (long id = 1; id <= 10_000_000; id++) {
+            ids.add(id);
+        }
+
+        assertEquals(10_000_000, ids.cardinality());
+        assertTrue(ids.sizeInBytes() < 2 * 1024 * 1024, "10M ids took " + ids.sizeInBytes() + " bytes");
+    }
+}
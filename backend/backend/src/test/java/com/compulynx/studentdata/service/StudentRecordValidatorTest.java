@@ -0,0 +1,104 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.UploadRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentRecordValidatorTest {
+
+    private static final StudentRecordValidator.Rules RULES = new StudentRecordValidator.Rules(
+            0, 100, LocalDate.of(2000, 1, 1).toEpochDay(), LocalDate.of(2010, 12, 31).toEpochDay());
+
+    @Test
+    void parseEpochDay_shouldMatchLocalDate() {
+        for (LocalDate date = LocalDate.of(1899, 12, 25); date.getYear() < 2102; date = date.plusDays(1)) {
+            byte[] bytes = (" " + date + " ").getBytes(StandardCharsets.US_ASCII);
+            assertEquals(date.toEpochDay(), StudentRecordValidator.parseEpochDay(bytes, 0, bytes.length), date.toString());
+        }
+    }
+
+    @Test
+    void parseEpochDay_shouldRejectMalformedDates() {
+        for (String value : new String[] {"2005-02-29", "2005-13-01", "2005-00-10", "2005-6-15", "2005/06/15", "20O5-06-15", ""}) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(StudentRecordValidator.INVALID, StudentRecordValidator.parseEpochDay(bytes, 0, bytes.length), value);
+        }
+    }
+
+    @Test
+    void validate_shouldEnforceDomainRulesAndKeepParsedValues() throws IOException {
+        StudentRecordValidator validator = new StudentRecordValidator(RULES, true);
+
+        try (CsvRecordReader reader = reader("""
+                7,John,Doe,2005-06-15, Class5 ,100
+                0,John,Doe,2005-06-15,Class1,70
+                8, ,Doe,1999-12-31,class1,101
+                9,Jane,Smith,2011-01-01,Class1,-1
+                """)) {
+            assertTrue(reader.next());
+            assertTrue(validator.validate(reader));
+            assertEquals(7, validator.studentId());
+            assertEquals(LocalDate.of(2005, 6, 15).toEpochDay(), validator.dob());
+            assertEquals(100, validator.score());
+
+            while (reader.next()) {
+                assertFalse(validator.validate(reader));
+            }
+        }
+
+        assertEquals(3, validator.report().rejected());
+        assertEquals(Map.of("studentId", 1, "dob", 2, "class", 1, "score", 2),
+                validator.report().columnErrors());
+        assertEquals(List.of(2L, 3L, 4L), validator.report().rejectedLines());
+    }
+
+    @Test
+    void validate_shouldAcceptBlankNames() throws IOException {
+        StudentRecordValidator validator = new StudentRecordValidator(RULES, false);
+
+        try (CsvRecordReader reader = reader("7, ,,2005-06-15,Class5,100\n")) {
+            assertTrue(reader.next());
+            assertTrue(validator.validate(reader));
+        }
+    }
+
+    @Test
+    void validate_shouldRejectUploadAtFirstInvalidRecordUnlessSkipping() throws IOException {
+        StudentRecordValidator validator = new StudentRecordValidator(RULES, false);
+
+        try (CsvRecordReader reader = reader("""
+                7,John,Doe,2005-06-15,Class5,100
+                8,Jane,Doe,1999-12-31,class1,70
+                """)) {
+            assertTrue(reader.next());
+            assertTrue(validator.validate(reader));
+            assertTrue(reader.next());
+            UploadRejectedException e = assertThrows(UploadRejectedException.class, () -> validator.validate(reader));
+            assertEquals("Invalid dob, class on line 2", e.getMessage());
+        }
+    }
+
+    @Test
+    void validate_shouldSkipEmptyLinesWithoutCountingThem() throws IOException {
+        StudentRecordValidator validator = new StudentRecordValidator(RULES, false);
+
+        try (CsvRecordReader reader = reader("\n")) {
+            assertTrue(reader.next());
+            assertFalse(validator.validate(reader));
+        }
+
+        assertEquals(0, validator.report().rejected());
+    }
+
+    private static CsvRecordReader reader(String csv) {
+        return new CsvRecordReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.StudentRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentRowBroadcasterTest {
+
+    private static final int THREADS = 3;
+
+    private ThreadPoolTaskExecutor executor;
+    private Semaphore threads;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(THREADS);
+        executor.setMaxPoolSize(THREADS);
+        executor.initialize();
+        threads = new Semaphore(THREADS, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void finish_shouldHandEveryRowToEveryWriterInOrder() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        AtomicLong count = new AtomicLong();
+        int rows = StudentRowBroadcaster.BLOCK_ROWS * 20 + 7;
+
+        try (StudentRowBroadcaster broadcaster = new StudentRowBroadcaster(executor, threads, List.of(
+                source -> source.forEach(row -> ids.add(row.studentId())),
+                source -> source.forEach(row -> count.incrementAndGet())))) {
+            for (long id = 1; id <= rows; id++) {
+                broadcaster.accept(row(id));
+            }
+            broadcaster.finish();
+        }
+
+        assertEquals(rows, ids.size());
+        assertEquals(rows, ids.get(rows - 1));
+        assertEquals(rows, count.get());
+    }
+
+    @Test
+    void accept_shouldFailInsteadOfBlockingWhenAWriterFails() throws InterruptedException {
+        IOException failure = assertThrows(IOException.class, () -> {
+            try (StudentRowBroadcaster broadcaster = new StudentRowBroadcaster(executor, threads, List.of(
+                    source -> source.forEach(row -> { }),
+                    source -> {
+                        throw new IOException("disk full");
+                    }))) {
+                // Far more blocks than the failed writer's queue holds
+                for (long id = 1; id <= StudentRowBroadcaster.BLOCK_ROWS * 100L; id++) {
+                    broadcaster.accept(row(id));
+                }
+                broadcaster.finish();
+            }
+        });
+
+        assertEquals("disk full", failure.getMessage());
+        // The cancelled writer hands its thread back once it has stopped
+        assertTrue(threads.tryAcquire(THREADS, 5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void finish_shouldRunMoreBroadcastsThanThePoolHoldsAtOnce() throws Exception {
+        int broadcasts = THREADS * 2;
+        ExecutorService scans = Executors.newFixedThreadPool(broadcasts);
+        try {
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int broadcast = 0; broadcast < broadcasts; broadcast++) {
+                counts.add(scans.submit(() -> {
+                    AtomicLong count = new AtomicLong();
+                    // Two writers each: started one at a time, two broadcasts could each hold one of
+                    // the last threads and wait forever for the second
+                    try (StudentRowBroadcaster broadcaster = new StudentRowBroadcaster(executor, threads, List.of(
+                            source -> source.forEach(row -> count.incrementAndGet()),
+                            source -> source.forEach(row -> { })))) {
+                        for (long id = 1; id <= StudentRowBroadcaster.BLOCK_ROWS * 20L; id++) {
+                            broadcaster.accept(row(id));
+                        }
+                        broadcaster.finish();
+                    }
+                    return count.get();
+                }));
+            }
+
+            for (Future<Long> count : counts) {
+                assertEquals(StudentRowBroadcaster.BLOCK_ROWS * 20L, count.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            scans.shutdownNow();
+        }
+        assertEquals(THREADS, threads.availablePermits());
+    }
+
+    private static StudentRow row(long id) {
+        return new StudentRow(id, "First" + id, "Last" + id, null, "Class1", 50);
+    }
+}
@@ -54,6 +54,19 @@ class StudentServiceTest {
         verify(studentRepository).search(null, null, PageRequest.of(0, 10));
     }
 
+    @Test
+    void getStudents_withAsOfBatch_shouldReadBatchVersions() {
+        Page<Student> expectedPage = new PageImpl<>(List.of(createStudent(1L, "John", "Doe", "Class1", 75)));
+
+        when(studentRepository.searchAsOfBatch(eq(3L), eq(null), eq("Class1"), any(Pageable.class)))
+                .thenReturn(expectedPage);
+
+        Page<Student> result = studentService.getStudents(null, "Class1", 3L, 0, 10);
+
+        assertEquals(1, result.getTotalElements());
+        verify(studentRepository, never()).search(any(), any(), any(Pageable.class));
+    }
+
     @Test
     void getStudents_withStudentIdFilter_shouldFilterByStudentId() {
         Student student = createStudent(1L, "John", "Doe", "Class1", 75);
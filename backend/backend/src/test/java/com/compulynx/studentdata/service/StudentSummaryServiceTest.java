@@ -0,0 +1,85 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.ClassSummary;
+import com.compulynx.studentdata.model.Student;
+import com.compulynx.studentdata.model.StudentSummary;
+import com.compulynx.studentdata.repository.StudentBulkReader;
+import com.compulynx.studentdata.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({StudentBulkReader.class, StudentSummaryService.class})
+class StudentSummaryServiceTest {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private StudentSummaryService studentSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        studentRepository.deleteAll();
+        studentRepository.saveAllAndFlush(List.of(
+                new Student(1L, "A", "A", LocalDate.of(2005, 1, 1), "Class1", 10),
+                new Student(2L, "B", "B", LocalDate.of(2005, 6, 1), "Class1", 20),
+                new Student(3L, "C", "C", LocalDate.of(2006, 1, 1), "Class1", 20),
+                new Student(4L, "D", "D", LocalDate.of(2006, 1, 1), "Class1", 100),
+                new Student(5L, "E", "E", null, "Class1", null),
+                new Student(6L, "F", "F", LocalDate.of(2007, 3, 3), "Class2", 55),
+                new Student(7L, "G", "G", LocalDate.of(2007, 3, 3), null, 95)));
+    }
+
+    @Test
+    void summarize_shouldComputeStatisticsPerClass() {
+        StudentSummary summary = studentSummaryService.summarize();
+
+        assertEquals(List.of("(no class)", "Class1", "Class2"),
+                summary.classes().stream().map(ClassSummary::studentClass).toList());
+        ClassSummary class1 = summary.classes().get(1);
+        assertEquals(5, class1.students());
+        assertEquals(4, class1.scored());
+        assertEquals(37.5, class1.averageScore());
+        assertEquals(10, class1.minScore());
+        assertEquals(100, class1.maxScore());
+        assertEquals(20.0, class1.medianScore());
+        assertEquals(76.0, class1.p90Score(), 1e-9); // rank 2.7 of 10, 20, 20, 100
+        assertEquals(Map.of(10, 1L, 20, 2L, 100, 1L), class1.scoreHistogram());
+        assertEquals(Map.of(2005, 2L, 2006, 2L), class1.dobYears());
+    }
+
+    @Test
+    void summarize_shouldCombineAllClassesInOverall() {
+        ClassSummary overall = studentSummaryService.summarize().overall();
+
+        assertEquals(7, overall.students());
+        assertEquals(6, overall.scored());
+        assertEquals(37.5, overall.medianScore()); // halfway between 20 and 55
+        assertEquals(Map.of(2005, 2L, 2006, 2L, 2007, 2L), overall.dobYears());
+    }
+
+    @Test
+    void summarize_shouldLeaveScoreStatisticsEmptyWithoutScores() {
+        studentRepository.deleteAll();
+        studentRepository.saveAndFlush(new Student(1L, "A", "A", null, "Class1", null));
+
+        ClassSummary class1 = studentSummaryService.summarize().classes().get(0);
+
+        assertEquals(1, class1.students());
+        assertNull(class1.averageScore());
+        assertNull(class1.medianScore());
+        assertTrue(class1.scoreHistogram().isEmpty());
+    }
+}
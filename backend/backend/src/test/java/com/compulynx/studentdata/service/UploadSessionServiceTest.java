@@ -0,0 +1,132 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.exception.UploadConflictException;
+import com.compulynx.studentdata.exception.UploadSessionNotFoundException;
+import com.compulynx.studentdata.model.UploadOptions;
+import com.compulynx.studentdata.model.UploadResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTest {
+
+    @Mock
+    private StudentUploadService studentUploadService;
+
+    @TempDir
+    Path tempDir;
+
+    private ThreadPoolTaskExecutor executor;
+    private UploadSessionService uploadSessionService;
+
+    @BeforeEach
+    void setUp() {
+        FilePathService filePathService = new FilePathService() {
+            @Override
+            public Path resolveDirectory() {
+                return tempDir;
+            }
+        };
+        executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        uploadSessionService = new UploadSessionService(studentUploadService, filePathService, executor, executor);
+        ReflectionTestUtils.setField(uploadSessionService, "maxChunkSize", 1024L);
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTimeout", Duration.ofMinutes(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void complete_shouldIngestChunksReceivedAcrossRequests() throws Exception {
+        when(studentUploadService.upload(any(), any(), any(), any()))
+                .thenAnswer(invocation -> new UploadResult(invocation.getArgument(0), readAll(invocation.getArgument(1)), 0));
+        String part1 = "studentId,firstName,lastName,dob,class,score\n1,John,Doe,";
+        String part2 = "2005-06-15,Class1,70\n2,Jane,Smith,2006-03-20,Class2,75\n";
+
+        UploadSession session = uploadSessionService.create(UploadOptions.defaults());
+        uploadSessionService.appendChunk(session.id(), 0, stream(part1));
+        verify(studentUploadService, timeout(1000)).upload(eq(session.id()), any(), any(), any());
+        uploadSessionService.appendChunk(session.id(), part1.length(), stream(part2));
+
+        UploadResult result = uploadSessionService.complete(session.id(), (long) (part1 + part2).length());
+
+        assertEquals((part1 + part2).length(), result.inserted(), "Ingest should read every staged byte");
+        assertEquals(session.id(), result.uploadId());
+    }
+
+    @Test
+    void appendChunk_shouldAcceptRetransmittedChunk() throws IOException {
+        UploadSession session = uploadSessionService.create(UploadOptions.defaults());
+        uploadSessionService.appendChunk(session.id(), 0, stream("abcdef"));
+
+        long received = uploadSessionService.appendChunk(session.id(), 0, stream("abcdef"));
+        long extended = uploadSessionService.appendChunk(session.id(), 3, stream("defghi"));
+
+        assertEquals(6, received);
+        assertEquals(9, extended);
+    }
+
+    @Test
+    void appendChunk_shouldRejectGapInOffsets() throws IOException {
+        UploadSession session = uploadSessionService.create(UploadOptions.defaults());
+        uploadSessionService.appendChunk(session.id(), 0, stream("abc"));
+
+        assertThrows(UploadConflictException.class,
+                () -> uploadSessionService.appendChunk(session.id(), 10, stream("xyz")));
+        assertEquals(3, uploadSessionService.get(session.id()).received());
+    }
+
+    @Test
+    void complete_shouldRejectSizeMismatch() throws IOException {
+        UploadSession session = uploadSessionService.create(UploadOptions.defaults());
+        uploadSessionService.appendChunk(session.id(), 0, stream("abc"));
+
+        assertThrows(UploadConflictException.class, () -> uploadSessionService.complete(session.id(), 10L));
+    }
+
+    @Test
+    void abort_shouldFailPendingReadsAndForgetSession() throws Exception {
+        UploadSession session = uploadSessionService.create(UploadOptions.defaults());
+        uploadSessionService.appendChunk(session.id(), 0, stream("abc"));
+        InputStream reader = session.source().getInputStream();
+        assertEquals(3, reader.readNBytes(3).length);
+
+        uploadSessionService.abort(session.id());
+
+        assertThrows(IOException.class, reader::read);
+        assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.get(session.id()));
+    }
+
+    private static int readAll(InputStreamSource source) throws IOException {
+        try (InputStream in = source.getInputStream()) {
+            return in.readAllBytes().length;
+        }
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,149 @@
+package com.compulynx.studentdata.service;
+
+import com.compulynx.studentdata.model.StudentRow;
+import com.compulynx.studentdata.repository.StudentRowSink;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxExportWriterTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void writeTo_shouldRollOverToNewSheetAtRowLimit() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxExportWriter writer = new XlsxExportWriter(3)) {
+            StudentRowSink first = writer.addPart("students");
+            StudentRowSink second = writer.addPart("students");
+            for (int id = 1; id <= 5; id++) {
+                (id <= 3 ? first : second).accept(student(id));
+            }
+            writer.completePart(0);
+            writer.completePart(1);
+            writer.writeTo(out, executor, 2);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals("students", workbook.getSheetName(0));
+            assertEquals("students (2)", workbook.getSheetName(1));
+            assertEquals("students (3)", workbook.getSheetName(2));
+            long id = 1;
+            for (Sheet sheet : workbook) {
+                assertEquals("studentId", sheet.getRow(0).getCell(0).getStringCellValue());
+                for (int r = 1; r <= sheet.getLastRowNum(); r++) {
+                    assertEquals(id++, (long) sheet.getRow(r).getCell(0).getNumericCellValue());
+                }
+            }
+            assertEquals(6, id);
+        }
+    }
+
+    @Test
+    void writeTo_shouldRunContinuedPartsOnIntoTheSameSheets() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxExportWriter writer = new XlsxExportWriter(3)) {
+            List<StudentRowSink> parts = writer.addParts("students", 4);
+            parts.get(0).accept(student(1));
+            parts.get(2).accept(new StudentRow(2, "Two\nLines", null, null, "Class1", 70));
+            parts.get(2).accept(student(3));
+            parts.get(2).accept(student(4));
+            parts.get(3).accept(student(5));
+            for (int part = 0; part < parts.size(); part++) {
+                writer.completePart(part);
+            }
+            writer.writeTo(out, executor, 2);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals(List.of(2, 2, 1), List.of(workbook.getSheetAt(0).getLastRowNum(),
+                    workbook.getSheetAt(1).getLastRowNum(), workbook.getSheetAt(2).getLastRowNum()));
+            Row split = workbook.getSheetAt(0).getRow(2);
+            assertEquals(2, (long) split.getCell(0).getNumericCellValue());
+            assertEquals("Two\nLines", split.getCell(1).getStringCellValue());
+            assertEquals("Class1", split.getCell(4).getStringCellValue());
+            assertEquals(3, (long) workbook.getSheetAt(1).getRow(1).getCell(0).getNumericCellValue());
+            assertEquals(5, (long) workbook.getSheetAt(2).getRow(1).getCell(0).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void writeTo_shouldEscapeTextAndLeaveMissingScoresEmpty() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxExportWriter writer = new XlsxExportWriter()) {
+            writer.addPart("Class[1]").accept(new StudentRow(7, "Tom & <Jerry>", "O'Neil\u0001", null, "Class1", null));
+            writer.completePart(0);
+            writer.writeTo(out, executor, 1);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("Class_1_", sheet.getSheetName());
+            Row row = sheet.getRow(1);
+            assertEquals("Tom & <Jerry>", row.getCell(1).getStringCellValue());
+            assertEquals("O'Neil", row.getCell(2).getStringCellValue());
+            assertNull(row.getCell(5));
+        }
+    }
+
+    @Test
+    void writeTo_shouldWriteHeaderOnlySheetWhenThereAreNoRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxExportWriter writer = new XlsxExportWriter()) {
+            writer.addPart("students");
+            writer.completePart(0);
+            writer.writeTo(out, executor, 1);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(1, workbook.getNumberOfSheets());
+            assertEquals(0, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    @Test
+    void writeTo_shouldLeaveTheSharedExecutorRunning() throws IOException {
+        for (int workbook = 0; workbook < 2; workbook++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (XlsxExportWriter writer = new XlsxExportWriter()) {
+                writer.addPart("students").accept(student(1));
+                writer.completePart(0);
+                writer.writeTo(out, executor, 2);
+            }
+            assertTrue(out.size() > 0);
+        }
+
+        assertFalse(executor.getThreadPoolExecutor().isShutdown());
+    }
+
+    private static StudentRow student(long id) {
+        return new StudentRow(id, "First" + id, "Last" + id, LocalDate.of(2005, 6, 15), "Class1", 70);
+    }
+}